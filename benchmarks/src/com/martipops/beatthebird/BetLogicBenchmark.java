@@ -0,0 +1,37 @@
+package com.martipops.beatthebird;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Class BetLogicBenchmark:
+ * Benchmarks {@link BetLogic#calculateWinnings(int)} with a bet on every spot.
+ */
+@State(Scope.Thread)
+public class BetLogicBenchmark {
+
+	@Param({ "1", "3", "20" })
+	int spot;
+
+	BetLogic bets;
+
+	@Setup
+	public void setup() {
+		HeadlessGdx.init();
+		bets = new BetLogic();
+		for (int value : GameInterface.BET_SPOTS) {
+			BetSpot betSpot = new BetSpot(0, 0, 100, 100, value);
+			betSpot.total = 100;
+			bets.add(betSpot);
+		}
+	}
+
+	@Benchmark
+	public long calculateWinnings() {
+		return bets.calculateWinnings(spot);
+	}
+
+}
@@ -0,0 +1,41 @@
+package com.martipops.beatthebird;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * Class HeadlessGdx:
+ * Sets up libGDX without a window so the game classes can be benchmarked. The
+ * headless backend provides files and graphics, and GL calls go to
+ * {@link HeadlessGL}.
+ */
+public class HeadlessGdx {
+
+	private static boolean initialized;
+
+	/**
+	 * Starts the headless backend and the game globals the benchmarked classes
+	 * use. Safe to call more than once.
+	 */
+	public static synchronized void init() {
+		if (initialized)
+			return;
+		HeadlessGL.install();
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		config.updatesPerSecond = -1;
+		new HeadlessApplication(new ApplicationAdapter() {
+		}, config);
+		GameMain.assets = new GameAssets();
+		GameMain.assets.finishLoading();
+		GameMain.resources = new ResourceRegistry(GameMain.assets);
+		GameMain.coinTenRegion = new TextureRegion();
+		GameMain.ui = new GameUI();
+		GameMain.bets = new BetLogic();
+		GameMain.playerInventory = new Inventory(0, 0, 100, 100);
+		GameMain.playerInventory.setName("Player");
+		initialized = true;
+	}
+
+}
@@ -0,0 +1,74 @@
+package com.martipops.beatthebird;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.scenes.scene2d.ui.Image;
+
+/**
+ * Class HitIndexBenchmark:
+ * Benchmarks finding the actor under a point on the game's layout, by walking
+ * the actors and through a {@link HitIndex}.
+ */
+@State(Scope.Thread)
+public class HitIndexBenchmark {
+
+	@Param({ "0", "100", "1000" })
+	int diamonds;
+
+	Group root;
+	HitIndex index;
+	float[] points = new float[2048];
+	int next;
+
+	@Setup
+	public void setup() {
+		HeadlessGdx.init();
+		root = new Group();
+		Image background = new Image();
+		background.setBounds(0, 0, GameInterface.SCREEN_WIDTH, GameInterface.SCREEN_HEIGHT);
+		root.addActor(background);
+		CircleActor wheel = new CircleActor();
+		wheel.setBounds(200, 320, 372, 375);
+		wheel.setOrigin(186, 187.5f);
+		wheel.setScale(1.2f);
+		root.addActor(wheel);
+		Inventory player = new Inventory(750, 25, 1175, 775);
+		player.setTotal(diamonds);
+		player.syncCoins();
+		root.addActor(player);
+		for (int i = 0; i < GameInterface.BET_SPOTS.length; i++) {
+			BetSpot spot = new BetSpot(115 + i * 110, 120, 215 + i * 110, 225, GameInterface.BET_SPOTS[i]);
+			spot.setTotal(diamonds);
+			spot.syncCoins();
+			root.addActor(spot);
+		}
+		root.addActor(new GameUI());
+		index = new HitIndex(root, GameInterface.SCREEN_WIDTH, GameInterface.SCREEN_HEIGHT);
+		Random random = new Random(1);
+		for (int i = 0; i < points.length; i += 2) {
+			points[i] = random.nextFloat() * GameInterface.SCREEN_WIDTH;
+			points[i + 1] = random.nextFloat() * GameInterface.SCREEN_HEIGHT;
+		}
+	}
+
+	@Benchmark
+	public Actor walk() {
+		next = (next + 2) & (points.length - 1);
+		return root.hit(points[next], points[next + 1], false);
+	}
+
+	@Benchmark
+	public Actor index() {
+		next = (next + 2) & (points.length - 1);
+		return index.hit(points[next], points[next + 1], false);
+	}
+
+}
@@ -0,0 +1,76 @@
+package com.martipops.beatthebird;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+/**
+ * Class InventoryBenchmark:
+ * Benchmarks moving coins between inventories and setting totals below, at and
+ * above the {@link Inventory#MAX_VISIBLE_COINS} cap.
+ */
+public class InventoryBenchmark {
+
+	@State(Scope.Thread)
+	public static class Transfer {
+		@Param({ "1", "10", "100", "1000" })
+		int amount;
+
+		Inventory player;
+		BetSpot spot;
+
+		@Setup
+		public void setup() {
+			HeadlessGdx.init();
+			player = new Inventory(0, 0, 500, 500);
+			player.setName("Player");
+			player.setTotal(Integer.MAX_VALUE / 2);
+			spot = new BetSpot(0, 0, 100, 100, 1);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Total {
+		/**
+		 * 10 coins, exactly the 100 coin cap, and far above it
+		 */
+		@Param({ "100", "1000", "1000000" })
+		int total;
+
+		BetSpot spot;
+		/**
+		 * Whether the spot holds the total, flipped on every invocation
+		 */
+		boolean full;
+
+		@Setup
+		public void setup() {
+			HeadlessGdx.init();
+			spot = new BetSpot(0, 0, 100, 100, 1);
+		}
+	}
+
+	/**
+	 * Moves the amount onto the spot and back again. The coins on screen follow
+	 * on the next frame, so this is only the transfer.
+	 */
+	@Benchmark
+	public boolean transferCoin(Transfer state) {
+		return state.player.transferCoin(state.spot, -state.amount) & state.player.transferCoin(state.spot, state.amount);
+	}
+
+	/**
+	 * Fills the empty spot up to the total or empties it again, taking from or
+	 * freeing to the coin pool every time, and brings its coins up to date.
+	 */
+	@Benchmark
+	public int setTotal(Total state) {
+		state.full = !state.full;
+		state.spot.setTotal(state.full ? state.total : 0);
+		state.spot.syncCoins();
+		return state.spot.getChildren().size;
+	}
+
+}
@@ -0,0 +1,86 @@
+package com.martipops.beatthebird;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+
+/**
+ * Class SharedWalletBenchmark:
+ * Benchmarks {@link SharedWallet} under contention. Each operation credits 1 and
+ * debits it again. With every thread on its own player the score should grow
+ * linearly from {@code oneThread} to {@code ownPlayer}, while
+ * {@code sharedPlayer} shows the cost of every thread hitting one balance. The
+ * {@code tables} group has tables of one player betting and settling at once.
+ */
+public class SharedWalletBenchmark {
+
+	/**
+	 * The most players a trial hands out
+	 */
+	static final int PLAYERS = 1024;
+
+	@State(Scope.Benchmark)
+	public static class Wallet {
+		SharedWallet wallet;
+		/**
+		 * The next player handed to a thread
+		 */
+		final AtomicInteger nextPlayer = new AtomicInteger();
+
+		@Setup
+		public void setup() {
+			wallet = new SharedWallet(PLAYERS);
+			// enough for the tables group to never run dry or overflow
+			wallet.set(0, Long.MAX_VALUE / 2);
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Own {
+		int player;
+
+		@Setup
+		public void setup(Wallet state) {
+			player = 1 + state.nextPlayer.getAndIncrement() % (PLAYERS - 1);
+		}
+	}
+
+	@Benchmark
+	@Threads(1)
+	public boolean oneThread(Wallet state, Own own) {
+		return state.wallet.credit(own.player, 1) & state.wallet.debit(own.player, 1);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public boolean ownPlayer(Wallet state, Own own) {
+		return state.wallet.credit(own.player, 1) & state.wallet.debit(own.player, 1);
+	}
+
+	@Benchmark
+	@Threads(Threads.MAX)
+	public boolean sharedPlayer(Wallet state) {
+		return state.wallet.credit(0, 1) & state.wallet.debit(0, 1);
+	}
+
+	@Benchmark
+	@Group("tables")
+	@GroupThreads(2)
+	public boolean bet(Wallet state) {
+		return state.wallet.debit(0, 1);
+	}
+
+	@Benchmark
+	@Group("tables")
+	@GroupThreads(2)
+	public boolean settle(Wallet state) {
+		return state.wallet.credit(0, 1);
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.martipops.beatthebird;
+
+import java.util.Random;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * Class WheelBenchmark:
+ * Benchmarks looking up the landed spot and settling a whole spin through
+ * {@link WheelActor#act(float)}.
+ */
+@State(Scope.Thread)
+public class WheelBenchmark {
+
+	@State(Scope.Thread)
+	public static class Speed {
+		@Param({ "500", "750", "1000" })
+		int speed;
+	}
+
+	WheelActor wheel;
+	float[] rotations = new float[1024];
+	int next;
+
+	@Setup
+	public void setup() {
+		HeadlessGdx.init();
+		wheel = new WheelActor(new TextureRegion());
+		Random random = new Random(1);
+		for (int i = 0; i < rotations.length; i++)
+			rotations[i] = random.nextFloat() * 3600f;
+	}
+
+	/**
+	 * Clears the popups every settled spin leaves behind.
+	 */
+	@Setup(Level.Iteration)
+	public void clearPopUps() {
+		GameMain.ui.clearChildren();
+	}
+
+	@Benchmark
+	public int getSpot() {
+		wheel.setRotation(rotations[next++ & (rotations.length - 1)]);
+		return wheel.getSpot();
+	}
+
+	@Benchmark
+	public int spinSettle(Speed state) {
+		wheel.spin(state.speed);
+		while (wheel.isSpinning())
+			wheel.act(WheelPhysics.DEFAULT_STEP);
+		return wheel.getSpot();
+	}
+
+}
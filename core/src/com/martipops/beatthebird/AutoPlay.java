@@ -0,0 +1,59 @@
+package com.martipops.beatthebird;
+
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Touchable;
+
+/**
+ * Class AutoPlay:
+ * An invisible actor that lets a {@link Bot} play the game on screen. Whenever
+ * the wheel stands still it tells the bot how the last round went, lets it
+ * bet and spins again. Together with the time scale in {@link GameMain} this
+ * plays many rounds quickly while still showing them.
+ */
+public class AutoPlay extends Actor {
+
+	/**
+	 * The balance below which the player is refilled, and what to
+	 */
+	static final int MINIMUM = Inventory.COIN_VALUE, REFILL = 100;
+
+	private final Bot bot;
+	private final BettingTable table;
+	/**
+	 * The balance after the bets of the spin in progress, or -1 if none is
+	 */
+	private int balanceAfterBets = -1;
+
+	/**
+	 * Constructs the actor.
+	 *
+	 * @param bot   the strategy to play
+	 * @param table the table to play on
+	 */
+	public AutoPlay(Bot bot, BettingTable table) {
+		this.bot = bot;
+		this.table = table;
+		setTouchable(Touchable.disabled);
+	}
+
+	/**
+	 * Starts the next round once the wheel has stopped.
+	 */
+	@Override
+	public void act(float delta) {
+		super.act(delta);
+		if (table.isSpinning())
+			return;
+		if (balanceAfterBets >= 0) {
+			bot.settled(table.getLastSpot(), table.getBalance() - balanceAfterBets);
+			balanceAfterBets = -1;
+		}
+		if (table.getBalance() < MINIMUM)
+			table.setBalance(REFILL);
+		bot.placeBets(table);
+		balanceAfterBets = table.getBalance();
+		if (!table.spin())
+			balanceAfterBets = -1;
+	}
+
+}
@@ -1,33 +1,98 @@
 package com.martipops.beatthebird;
 
-import java.util.LinkedList;
+import java.util.Iterator;
+
+import com.badlogic.gdx.utils.Array;
 
 /**
- * BetLogic class extends LinkedList, representing the logic for the game's
- * betting system.
+ * BetLogic class, representing the logic for the game's betting system.
+ * BetSpots are stored in an array indexed by their spot value, so settling a
+ * spin only looks at the one spot that was landed on, no matter how many
+ * spots there are.
  */
-public class BetLogic extends LinkedList<BetSpot> {
+public class BetLogic implements Iterable<BetSpot> {
+
+    /**
+     * The BetSpots indexed by spot value, null where no spot has that value.
+     */
+    private BetSpot[] spotsByValue = new BetSpot[WheelLayout.MAX_SPOT + 1];
+
+    /**
+     * The BetSpots in the order they were added.
+     */
+    private final Array<BetSpot> spots = new Array<BetSpot>();
+
+    /**
+     * Adds a BetSpot. Only one spot can be added per spot value.
+     *
+     * @param spot The BetSpot to add.
+     * @return true once the spot is added.
+     */
+    public boolean add(BetSpot spot) {
+        if (spot.spotValue < 0)
+            throw new IllegalArgumentException("Spot value can't be negative: " + spot.spotValue);
+        if (spot.spotValue >= spotsByValue.length) {
+            BetSpot[] grown = new BetSpot[spot.spotValue + 1];
+            System.arraycopy(spotsByValue, 0, grown, 0, spotsByValue.length);
+            spotsByValue = grown;
+        }
+        if (spotsByValue[spot.spotValue] != null)
+            throw new IllegalArgumentException("A spot with value " + spot.spotValue + " was already added");
+        spotsByValue[spot.spotValue] = spot;
+        spots.add(spot);
+        return true;
+    }
+
+    /**
+     * @param spotValue The value of a spot.
+     * @return The BetSpot with that value, or null if there is none.
+     */
+    public BetSpot get(int spotValue) {
+        return spotValue >= 0 && spotValue < spotsByValue.length ? spotsByValue[spotValue] : null;
+    }
 
     /**
-     * Calculates the total winnings for all BetSpot objects in the list.
+     * @return The number of BetSpots.
+     */
+    public int size() {
+        return spots.size;
+    }
+
+    /**
+     * Calculates the total winnings for the spot that was landed on.
      * 
-     * @param spot The number of spots that were hit in the game.
-     * @return The total amount of winnings from all BetSpot objects.
-     */
-    public int calculateWinnings(int spot) {
-        int amtWon = 0;
-        for (BetSpot t : this)
-            amtWon += t.getWinnings(spot);
-        GameMain.ui.showPopUp("Won " + amtWon + " Diamonds!");
-        return amtWon;
+     * @param spot The value of the spot the wheel landed on.
+     * @return The total amount of winnings from the BetSpot with that value.
+     */
+    public long calculateWinnings(int spot) {
+        BetSpot t = get(spot);
+        return t == null ? 0 : t.getWinnings(spot);
+    }
+
+    /**
+     * @return The total amount bet on all BetSpots.
+     */
+    public int getTotal() {
+        int total = 0;
+        for (int i = 0; i < spots.size; i++)
+            total += spots.get(i).total;
+        return total;
     }
 
     /**
      * Resets the total bet amounts for all BetSpot objects in the list to 0.
      */
     public void clearBets() {
-        for (BetSpot spot : this)
-            spot.setTotal(0);
+        for (int i = 0; i < spots.size; i++) {
+            BetSpot spot = spots.get(i);
+            if (spot.total != 0)
+                spot.setTotal(0);
+        }
+    }
+
+    @Override
+    public Iterator<BetSpot> iterator() {
+        return spots.iterator();
     }
 
-}
\ No newline at end of file
+}
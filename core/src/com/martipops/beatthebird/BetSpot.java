@@ -35,8 +35,8 @@ public class BetSpot extends Inventory {
      * @param spotLanded The number of spots that were hit in the game.
      * @return The total amount of winnings for the BetSpot.
      */
-    public int getWinnings(int spotLanded) {
-        return (spotLanded == spotValue) ? (total * spotValue) + total : 0;
+    public long getWinnings(int spotLanded) {
+        return (spotLanded == spotValue) ? GameTable.payout(spotValue, total) : 0;
     }
 
     /**
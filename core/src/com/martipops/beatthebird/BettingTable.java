@@ -0,0 +1,81 @@
+package com.martipops.beatthebird;
+
+/**
+ * Interface BettingTable:
+ * What a program needs to play rounds: place diamonds on a spot, spin, and
+ * settle. {@link GameTable} plays without libGDX at full CPU speed and
+ * {@link StageTable} plays the game on screen, so a {@link Bot} can drive
+ * either.
+ */
+public interface BettingTable {
+
+	/**
+	 * @return the player's balance
+	 */
+	int getBalance();
+
+	/**
+	 * Sets the player's balance.
+	 *
+	 * @param balance the new balance
+	 */
+	void setBalance(int balance);
+
+	/**
+	 * @return the layout of the table's wheel, which decides the spots that can
+	 *         be bet on
+	 */
+	WheelLayout getLayout();
+
+	/**
+	 * @param spot the value of a spot
+	 * @return the amount bet on the spot
+	 */
+	int getBet(int spot);
+
+	/**
+	 * @return the total amount currently bet
+	 */
+	int getBetTotal();
+
+	/**
+	 * Moves diamonds from the balance onto a spot, or back off it when the amount
+	 * is negative. Either the whole amount moves or nothing does.
+	 *
+	 * @param spot   the value of the spot to bet on
+	 * @param amount the amount to bet, negative to take a bet back
+	 * @return true if the bet was placed
+	 */
+	boolean placeBet(int spot, int amount);
+
+	/**
+	 * Spins the wheel with a random speed.
+	 *
+	 * @return true if the wheel started spinning
+	 */
+	boolean spin();
+
+	/**
+	 * Stops the current spin right away where it would have stopped and settles
+	 * the round.
+	 *
+	 * @return true if a round was settled
+	 */
+	boolean finishSpin();
+
+	/**
+	 * @return true if the wheel is spinning
+	 */
+	boolean isSpinning();
+
+	/**
+	 * @return the spot the wheel last landed on, 0 before the first round
+	 */
+	int getLastSpot();
+
+	/**
+	 * @return the number of rounds settled
+	 */
+	long getRounds();
+
+}
@@ -0,0 +1,130 @@
+package com.martipops.beatthebird;
+
+/**
+ * Interface Bot:
+ * A betting strategy that plays rounds on a {@link BettingTable} by itself,
+ * for load testing and for tuning payouts. {@link BotRunner} plays it without
+ * libGDX as fast as the CPU allows, {@link AutoPlay} plays it on screen.
+ */
+public interface Bot {
+
+	/**
+	 * Called before every spin to place the round's bets.
+	 *
+	 * @param table the table to bet on
+	 */
+	void placeBets(BettingTable table);
+
+	/**
+	 * Called after every round is settled.
+	 *
+	 * @param spot     the spot the wheel landed on
+	 * @param winnings the amount paid back to the player
+	 */
+	void settled(int spot, int winnings);
+
+	/**
+	 * Class Flat:
+	 * Bets the same amount on the same spot every round.
+	 */
+	class Flat implements Bot {
+		private final int spot, amount;
+
+		/**
+		 * @param spot   the value of the spot to bet on
+		 * @param amount the amount to bet every round
+		 */
+		public Flat(int spot, int amount) {
+			this.spot = spot;
+			this.amount = amount;
+		}
+
+		@Override
+		public void placeBets(BettingTable table) {
+			table.placeBet(spot, Math.min(amount, table.getBalance()));
+		}
+
+		@Override
+		public void settled(int spot, int winnings) {
+		}
+
+		@Override
+		public String toString() {
+			return "flat " + amount + " on " + spot;
+		}
+	}
+
+	/**
+	 * Class Martingale:
+	 * Bets on one spot and doubles the bet after every loss, going back to the
+	 * base bet after a win or when the balance can't cover the next bet.
+	 */
+	class Martingale implements Bot {
+		private final int spot, base;
+		private int next;
+
+		/**
+		 * @param spot the value of the spot to bet on
+		 * @param base the first bet
+		 */
+		public Martingale(int spot, int base) {
+			this.spot = spot;
+			this.base = base;
+			this.next = base;
+		}
+
+		@Override
+		public void placeBets(BettingTable table) {
+			if (next > table.getBalance())
+				next = base;
+			table.placeBet(spot, Math.min(next, table.getBalance()));
+		}
+
+		@Override
+		public void settled(int spot, int winnings) {
+			next = winnings > 0 ? base : next * 2;
+		}
+
+		@Override
+		public String toString() {
+			return "martingale from " + base + " on " + spot;
+		}
+	}
+
+	/**
+	 * Class Spread:
+	 * Bets the same amount on a few random spots every round.
+	 */
+	class Spread implements Bot {
+		private final TableRandom random;
+		private final int amount, spots;
+
+		/**
+		 * @param random picks the spots
+		 * @param amount the amount to bet on each spot
+		 * @param spots  the number of bets each round
+		 */
+		public Spread(TableRandom random, int amount, int spots) {
+			this.random = random;
+			this.amount = amount;
+			this.spots = spots;
+		}
+
+		@Override
+		public void placeBets(BettingTable table) {
+			WheelLayout layout = table.getLayout();
+			for (int i = 0; i < spots && table.getBalance() >= amount; i++)
+				table.placeBet(layout.getBetValue(random.nextInt(layout.getBetCount())), amount);
+		}
+
+		@Override
+		public void settled(int spot, int winnings) {
+		}
+
+		@Override
+		public String toString() {
+			return "spread " + spots + " x " + amount;
+		}
+	}
+
+}
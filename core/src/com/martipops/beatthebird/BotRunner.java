@@ -0,0 +1,136 @@
+package com.martipops.beatthebird;
+
+/**
+ * Class BotRunner:
+ * Plays a {@link Bot} for a number of rounds, settling every spin right away,
+ * and reports how much it wagered and won. On a {@link GameTable} this runs
+ * millions of rounds per second, which makes it both a load test and a way to
+ * check the payouts of a strategy.
+ */
+public class BotRunner {
+
+	/**
+	 * Class Result:
+	 * What happened over a run.
+	 */
+	public static class Result {
+		long rounds, wagered, paid, refills, nanos;
+
+		/**
+		 * @return the number of rounds played
+		 */
+		public long getRounds() {
+			return rounds;
+		}
+
+		/**
+		 * @return the total amount bet
+		 */
+		public long getWagered() {
+			return wagered;
+		}
+
+		/**
+		 * @return the total amount paid back
+		 */
+		public long getPaid() {
+			return paid;
+		}
+
+		/**
+		 * @return the number of times the balance ran out and was refilled
+		 */
+		public long getRefills() {
+			return refills;
+		}
+
+		/**
+		 * @return the share of the wagered amount paid back
+		 */
+		public double getReturnToPlayer() {
+			return wagered == 0 ? 0 : (double) paid / wagered;
+		}
+
+		/**
+		 * @return the rounds played per second
+		 */
+		public double getRoundsPerSecond() {
+			return nanos == 0 ? 0 : rounds * 1e9 / nanos;
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%d rounds, wagered %d, paid %d, RTP %.4f, %d refills, %.0f rounds/s", rounds,
+					wagered, paid, getReturnToPlayer(), refills, getRoundsPerSecond());
+		}
+	}
+
+	/**
+	 * Plays rounds until the number is reached. Whenever the balance drops below
+	 * the minimum, it is set back to the refill amount, like the 'c' key does.
+	 *
+	 * @param bot     the strategy
+	 * @param table   the table to play on, not spinning
+	 * @param rounds  the number of rounds to play
+	 * @param minimum the balance below which it is refilled
+	 * @param refill  the balance it is refilled to
+	 * @return what happened
+	 */
+	public static Result run(Bot bot, BettingTable table, long rounds, int minimum, int refill) {
+		Result result = new Result();
+		long start = System.nanoTime();
+		while (result.rounds < rounds) {
+			if (table.getBalance() < minimum) {
+				table.setBalance(refill);
+				result.refills++;
+			}
+			bot.placeBets(table);
+			int bet = table.getBetTotal();
+			int before = table.getBalance();
+			if (!table.spin() || !table.finishSpin())
+				throw new IllegalStateException("The table did not settle a round");
+			int winnings = table.getBalance() - before;
+			result.wagered += bet;
+			result.paid += winnings;
+			result.rounds++;
+			bot.settled(table.getLastSpot(), winnings);
+		}
+		result.nanos = System.nanoTime() - start;
+		return result;
+	}
+
+	/**
+	 * Creates one of the strategies by name.
+	 *
+	 * @param name   flat, martingale or spread
+	 * @param random the generator for strategies that need one
+	 * @return the strategy
+	 * @throws IllegalArgumentException if the name is unknown
+	 */
+	public static Bot createBot(String name, TableRandom random) {
+		if (name.equals("flat"))
+			return new Bot.Flat(1, 10);
+		if (name.equals("martingale"))
+			return new Bot.Martingale(1, 10);
+		if (name.equals("spread"))
+			return new Bot.Spread(random, 10, 3);
+		throw new IllegalArgumentException("Unknown bot " + name + ", use flat, martingale or spread");
+	}
+
+	/**
+	 * Plays a bot on a table without libGDX and prints the result.
+	 *
+	 * @param args the bot name, the number of rounds and the seed
+	 */
+	public static void main(String[] args) {
+		String name = args.length > 0 ? args[0] : "spread";
+		long rounds = args.length > 1 ? Long.parseLong(args[1]) : 10000000;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+		TableRandom random = new TableRandom(seed);
+		Bot bot = createBot(name, random.split());
+		GameTable table = new GameTable(0, 1000, random.split(), SpinSolver.DEFAULT);
+		System.out.println(bot + ", seed " + seed);
+		System.out.println(run(bot, table, rounds, 10, 1000));
+	}
+
+}
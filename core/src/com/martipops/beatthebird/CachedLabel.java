@@ -0,0 +1,129 @@
+package com.martipops.beatthebird;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+
+/**
+ * Class CachedLabel:
+ * A line of text whose glyphs are laid out once into a {@link BitmapFontCache}
+ * and drawn from it every frame. The text is only laid out again when it
+ * actually changes, and numbers are written into a reused buffer instead of
+ * being turned into strings, so drawing a label that did not change allocates
+ * nothing.
+ */
+public class CachedLabel {
+
+	/**
+	 * The laid out glyphs
+	 */
+	private final BitmapFontCache cache;
+	/**
+	 * The text currently laid out
+	 */
+	private final StringBuilder text = new StringBuilder();
+	/**
+	 * The prefix and number last passed to {@link #setText(CharSequence, int)}
+	 */
+	private CharSequence prefix;
+	private int number;
+	/**
+	 * The position, kept for when the text is laid out again
+	 */
+	private float x, y;
+	/**
+	 * Whether the text has to be laid out again before drawing
+	 */
+	private boolean dirty = true;
+
+	/**
+	 * Constructs an empty label.
+	 *
+	 * @param font  the font to lay out with, which may be shared
+	 * @param color the color of the text
+	 */
+	public CachedLabel(BitmapFont font, Color color) {
+		cache = new BitmapFontCache(font, font.usesIntegerPositions());
+		cache.setColor(color);
+	}
+
+	/**
+	 * Sets the label to some text.
+	 *
+	 * @param value the text
+	 */
+	public void setText(CharSequence value) {
+		prefix = null;
+		if (contentEquals(value))
+			return;
+		text.setLength(0);
+		text.append(value);
+		dirty = true;
+	}
+
+	/**
+	 * Sets the label to a prefix followed by a number. Does nothing if both are
+	 * the same as last time, the prefix is compared by identity.
+	 *
+	 * @param prefix the text before the number
+	 * @param value  the number
+	 */
+	public void setText(CharSequence prefix, int value) {
+		if (prefix == this.prefix && value == number && !dirty)
+			return;
+		this.prefix = prefix;
+		this.number = value;
+		text.setLength(0);
+		text.append(prefix).append(value);
+		dirty = true;
+	}
+
+	/**
+	 * Moves the label.
+	 *
+	 * @param x the left edge of the text
+	 * @param y the top of the text
+	 */
+	public void setPosition(float x, float y) {
+		if (!dirty && (x != cache.getX() || y != cache.getY()))
+			cache.setPosition(x, y);
+		this.x = x;
+		this.y = y;
+	}
+
+	/**
+	 * Draws the label, laying it out first if the text changed.
+	 *
+	 * @param batch the batch to draw with
+	 * @param alpha the alpha to multiply the color with
+	 */
+	public void draw(Batch batch, float alpha) {
+		if (dirty) {
+			cache.setText(text, 0, 0);
+			cache.setPosition(x, y);
+			dirty = false;
+		}
+		cache.draw(batch, alpha);
+	}
+
+	/**
+	 * @return the text of the label
+	 */
+	public CharSequence getText() {
+		return text;
+	}
+
+	/**
+	 * @return true if the laid out text is the same as a value
+	 */
+	private boolean contentEquals(CharSequence value) {
+		if (value.length() != text.length())
+			return false;
+		for (int i = 0; i < value.length(); i++)
+			if (value.charAt(i) != text.charAt(i))
+				return false;
+		return true;
+	}
+
+}
@@ -5,11 +5,14 @@ import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Touchable;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
+import com.badlogic.gdx.utils.Pool;
 
 /**
  * CoinActor class extends Image, representing a coin object in the game.
+ * Coins are reused through {@link Inventory}'s pool, so they implement
+ * Poolable.
  */
-public class CoinActor extends Image {
+public class CoinActor extends Image implements Pool.Poolable {
 
 	/**
 	 * The value of the coin.
@@ -52,16 +55,16 @@ public class CoinActor extends Image {
 	 * @param i The Inventory object to randomize the coin's coordinates within.
 	 */
 	public void randomizeCoords(Inventory i) {
-		float[] coords = generateRandomCoords(i);
-		setX(coords[0]);
-		setY(coords[1]);
+		setPosition(MathUtils.random(0, i.getWidth() / 2f), MathUtils.random(0, i.getHeight() / 2f));
 	}
 
-	public float[] generateRandomCoords(Inventory i) {
-		float[] coords = new float[2];
-		coords[0] = MathUtils.random(0, i.getWidth() / 2f);
-		coords[1] = MathUtils.random(0, i.getHeight() / 2f);
-		return coords;
+	/**
+	 * Resets the coin when it is returned to the pool.
+	 */
+	@Override
+	public void reset() {
+		clearActions();
+		setColor(1f, 1f, 1f, 1f);
 	}
 
 	/**
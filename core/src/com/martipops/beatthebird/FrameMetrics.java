@@ -0,0 +1,375 @@
+package com.martipops.beatthebird;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.List;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Class FrameMetrics:
+ * Records where the time of each frame goes: how long the stage took to act and
+ * to draw, how many coins are on stage, how often the batch flushed, how many
+ * bytes the render thread allocated and how much time the JVM spent in garbage
+ * collection. The last {@link #CAPACITY} frames are kept in a ring buffer of
+ * primitive arrays so recording does not allocate, and can be written out as
+ * CSV or JSON.
+ *
+ * It also times startup from the moment it is constructed: until the first
+ * frame of any kind is drawn, and until the first frame of the game itself is
+ * drawn once the assets are loaded.
+ */
+public class FrameMetrics {
+
+	/**
+	 * The number of frames kept, one minute at 60 FPS
+	 */
+	public static final int CAPACITY = 3600;
+
+	/**
+	 * The column names, in the order they are written
+	 */
+	static final String[] COLUMNS = { "frame", "act_ms", "draw_ms", "render_calls", "texture_binds", "coins",
+			"alloc_bytes", "gc_count", "gc_ms" };
+
+	/*
+	 * The ring buffer, one array per column indexed by slot
+	 */
+	private final long[] frames = new long[CAPACITY];
+	private final float[] actMillis = new float[CAPACITY];
+	private final float[] drawMillis = new float[CAPACITY];
+	private final int[] renderCalls = new int[CAPACITY];
+	private final int[] textureBindings = new int[CAPACITY];
+	private final int[] coins = new int[CAPACITY];
+	private final long[] allocatedBytes = new long[CAPACITY];
+	private final int[] gcCounts = new int[CAPACITY];
+	private final int[] gcMillis = new int[CAPACITY];
+
+	/**
+	 * The inventories whose coins are counted
+	 */
+	private final Array<Inventory> inventories = new Array<Inventory>();
+	/**
+	 * The garbage collectors of the JVM
+	 */
+	private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+	/**
+	 * The HotSpot thread bean used to read allocated bytes, or null if the JVM
+	 * does not have one
+	 */
+	private final com.sun.management.ThreadMXBean threads;
+	/**
+	 * The id of the thread frames are recorded on
+	 */
+	private long threadId = -1;
+
+	/*
+	 * The number of frames recorded, and the state carried between calls
+	 */
+	private long frame;
+	private long actStart, drawStart;
+	private long lastAllocated, lastGcCount, lastGcTime;
+
+	/*
+	 * When the metrics were constructed, and the milliseconds from then until the
+	 * first frame and the first game frame, -1 until they happen
+	 */
+	private final long startNanos = System.nanoTime();
+	private float firstFrameMillis = -1, gameFrameMillis = -1;
+
+	/**
+	 * Constructs the metrics.
+	 */
+	public FrameMetrics() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		threads = bean instanceof com.sun.management.ThreadMXBean ? (com.sun.management.ThreadMXBean) bean : null;
+	}
+
+	/**
+	 * Adds an inventory whose coins are counted each frame.
+	 *
+	 * @param inventory the inventory to count
+	 */
+	public void watch(Inventory inventory) {
+		inventories.add(inventory);
+	}
+
+	/**
+	 * Stops counting an inventory's coins.
+	 *
+	 * @param inventory the inventory
+	 */
+	public void unwatch(Inventory inventory) {
+		inventories.removeValue(inventory, true);
+	}
+
+	/**
+	 * @return the inventories whose coins are counted
+	 */
+	public Array<Inventory> getInventories() {
+		return inventories;
+	}
+
+	/**
+	 * Called after a loading screen frame is drawn.
+	 */
+	public void loadingFrame() {
+		if (firstFrameMillis < 0)
+			firstFrameMillis = (System.nanoTime() - startNanos) / 1e6f;
+	}
+
+	/**
+	 * Called before the stage acts.
+	 */
+	public void beginAct() {
+		actStart = System.nanoTime();
+	}
+
+	/**
+	 * Called after the stage acts.
+	 */
+	public void endAct() {
+		actMillis[index()] = (System.nanoTime() - actStart) / 1e6f;
+	}
+
+	/**
+	 * Called before the stage draws.
+	 */
+	public void beginDraw() {
+		drawStart = System.nanoTime();
+	}
+
+	/**
+	 * Called after the stage draws. Records the rest of the frame and moves on to
+	 * the next one.
+	 *
+	 * @param stats the render counters of the frame, or null
+	 */
+	public void endDraw(RenderStats stats) {
+		int i = index();
+		drawMillis[i] = (System.nanoTime() - drawStart) / 1e6f;
+		renderCalls[i] = stats == null ? 0 : stats.getRenderCalls();
+		textureBindings[i] = stats == null ? 0 : stats.getTextureBindings();
+		int coinCount = 0;
+		for (int j = 0; j < inventories.size; j++)
+			coinCount += inventories.get(j).getChildren().size;
+		coins[i] = coinCount;
+
+		long allocated = allocated();
+		allocatedBytes[i] = frame == 0 ? 0 : allocated - lastAllocated;
+		lastAllocated = allocated;
+
+		long gcCount = 0, gcTime = 0;
+		for (int j = 0; j < collectors.size(); j++) {
+			GarbageCollectorMXBean gc = collectors.get(j);
+			gcCount += Math.max(0, gc.getCollectionCount());
+			gcTime += Math.max(0, gc.getCollectionTime());
+		}
+		gcCounts[i] = frame == 0 ? 0 : (int) (gcCount - lastGcCount);
+		gcMillis[i] = frame == 0 ? 0 : (int) (gcTime - lastGcTime);
+		lastGcCount = gcCount;
+		lastGcTime = gcTime;
+
+		frames[i] = frame++;
+		if (gameFrameMillis < 0) {
+			gameFrameMillis = (System.nanoTime() - startNanos) / 1e6f;
+			if (firstFrameMillis < 0)
+				firstFrameMillis = gameFrameMillis;
+		}
+	}
+
+	/**
+	 * @return the bytes allocated by the recording thread so far, or 0 if the JVM
+	 *         cannot tell
+	 */
+	private long allocated() {
+		if (threads == null)
+			return 0;
+		if (threadId < 0)
+			threadId = Thread.currentThread().getId();
+		return threads.getThreadAllocatedBytes(threadId);
+	}
+
+	/**
+	 * @return the slot of the frame being recorded
+	 */
+	private int index() {
+		return (int) (frame % CAPACITY);
+	}
+
+	/**
+	 * @param age 0 for the last recorded frame, 1 for the one before and so on
+	 * @return the slot of that frame
+	 */
+	private int slot(int age) {
+		return (int) ((frame - 1 - age) % CAPACITY);
+	}
+
+	/**
+	 * @return the number of frames recorded and still kept
+	 */
+	public int size() {
+		return (int) Math.min(frame, CAPACITY);
+	}
+
+	/**
+	 * @return the number of frames recorded
+	 */
+	public long getFrame() {
+		return frame;
+	}
+
+	/**
+	 * @return the milliseconds from construction until the first frame was drawn,
+	 *         loading screen or not, or -1 before that
+	 */
+	public float getTimeToFirstFrame() {
+		return firstFrameMillis;
+	}
+
+	/**
+	 * @return the milliseconds from construction until the first game frame was
+	 *         drawn, or -1 before that
+	 */
+	public float getTimeToGameFrame() {
+		return gameFrameMillis;
+	}
+
+	/**
+	 * @return the milliseconds the stage took to act last frame
+	 */
+	public float getActMillis() {
+		return frame == 0 ? 0 : actMillis[slot(0)];
+	}
+
+	/**
+	 * @return the milliseconds the stage took to draw last frame
+	 */
+	public float getDrawMillis() {
+		return frame == 0 ? 0 : drawMillis[slot(0)];
+	}
+
+	/**
+	 * @return the number of times the batch flushed last frame
+	 */
+	public int getRenderCalls() {
+		return frame == 0 ? 0 : renderCalls[slot(0)];
+	}
+
+	/**
+	 * @return the number of textures bound last frame
+	 */
+	public int getTextureBindings() {
+		return frame == 0 ? 0 : textureBindings[slot(0)];
+	}
+
+	/**
+	 * @return the number of coins in the watched inventories last frame
+	 */
+	public int getCoins() {
+		return frame == 0 ? 0 : coins[slot(0)];
+	}
+
+	/**
+	 * @return the bytes the render thread allocated last frame
+	 */
+	public long getAllocatedBytes() {
+		return frame == 0 ? 0 : allocatedBytes[slot(0)];
+	}
+
+	/**
+	 * @param frames the number of recent frames to sum over
+	 * @return the collections in those frames
+	 */
+	public int getGcCount(int frames) {
+		int n = 0;
+		for (int age = 0; age < Math.min(frames, size()); age++)
+			n += gcCounts[slot(age)];
+		return n;
+	}
+
+	/**
+	 * @param frames the number of recent frames to sum over
+	 * @return the milliseconds spent collecting in those frames
+	 */
+	public int getGcMillis(int frames) {
+		int n = 0;
+		for (int age = 0; age < Math.min(frames, size()); age++)
+			n += gcMillis[slot(age)];
+		return n;
+	}
+
+	/**
+	 * Writes the kept frames as CSV, oldest first.
+	 *
+	 * @param out the writer to write to
+	 * @throws IOException if writing fails
+	 */
+	public void writeCsv(Writer out) throws IOException {
+		for (int c = 0; c < COLUMNS.length; c++)
+			out.write(c == 0 ? COLUMNS[c] : "," + COLUMNS[c]);
+		out.write('\n');
+		for (int age = size() - 1; age >= 0; age--) {
+			for (int c = 0; c < COLUMNS.length; c++) {
+				if (c > 0)
+					out.write(',');
+				out.write(value(c, slot(age)));
+			}
+			out.write('\n');
+		}
+	}
+
+	/**
+	 * Writes the kept frames as JSON, an object of column arrays, oldest first,
+	 * plus the startup times.
+	 *
+	 * @param out the writer to write to
+	 * @throws IOException if writing fails
+	 */
+	public void writeJson(Writer out) throws IOException {
+		out.write("{\"time_to_first_frame_ms\":" + firstFrameMillis);
+		out.write(",\"time_to_game_frame_ms\":" + gameFrameMillis);
+		for (int c = 0; c < COLUMNS.length; c++) {
+			out.write(",\"" + COLUMNS[c] + "\":[");
+			for (int age = size() - 1; age >= 0; age--) {
+				if (age != size() - 1)
+					out.write(',');
+				out.write(value(c, slot(age)));
+			}
+			out.write(']');
+		}
+		out.write("}\n");
+	}
+
+	/**
+	 * @param column the index of the column in {@link #COLUMNS}
+	 * @param i      the slot of the frame
+	 * @return the value as text
+	 */
+	private String value(int column, int i) {
+		switch (column) {
+			case 0:
+				return String.valueOf(frames[i]);
+			case 1:
+				return String.valueOf(actMillis[i]);
+			case 2:
+				return String.valueOf(drawMillis[i]);
+			case 3:
+				return String.valueOf(renderCalls[i]);
+			case 4:
+				return String.valueOf(textureBindings[i]);
+			case 5:
+				return String.valueOf(coins[i]);
+			case 6:
+				return String.valueOf(allocatedBytes[i]);
+			case 7:
+				return String.valueOf(gcCounts[i]);
+			default:
+				return String.valueOf(gcMillis[i]);
+		}
+	}
+
+}
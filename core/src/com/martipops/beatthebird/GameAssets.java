@@ -0,0 +1,109 @@
+package com.martipops.beatthebird;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Class GameAssets:
+ * Every file the game loads, queued on an {@link AssetManager} as soon as this
+ * is constructed. The manager reads and parses the files on its own thread and
+ * only uploads textures on the GL thread, a little each time
+ * {@link #update(int)} is called, so the window can draw a loading screen in
+ * the meantime. Adding an asset only means adding a descriptor here.
+ */
+public class GameAssets implements Disposable {
+
+	/**
+	 * The texture atlas packed by the packTextures Gradle task
+	 */
+	public static final AssetDescriptor<TextureAtlas> ATLAS = new AssetDescriptor<TextureAtlas>("game.atlas",
+			TextureAtlas.class);
+	/**
+	 * The font for pop ups
+	 */
+	public static final AssetDescriptor<BitmapFont> BUBBLE_FONT = new AssetDescriptor<BitmapFont>("bubblefont.fnt",
+			BitmapFont.class);
+	/**
+	 * The font libGDX uses for new BitmapFont(), read from its jar when it is not
+	 * in the assets folder
+	 */
+	public static final AssetDescriptor<BitmapFont> DEFAULT_FONT = new AssetDescriptor<BitmapFont>(
+			"com/badlogic/gdx/utils/lsans-15.fnt", BitmapFont.class);
+
+	/**
+	 * Loads and owns the assets
+	 */
+	private final AssetManager manager = new AssetManager();
+	/**
+	 * When loading started
+	 */
+	private final long startNanos = System.nanoTime();
+	/**
+	 * How long loading took, or -1 while loading
+	 */
+	private float loadMillis = -1;
+
+	/**
+	 * Constructs the assets and queues all of them for loading.
+	 */
+	public GameAssets() {
+		manager.load(ATLAS);
+		manager.load(BUBBLE_FONT);
+		manager.load(DEFAULT_FONT);
+	}
+
+	/**
+	 * Continues loading for at most a number of milliseconds. Must be called on
+	 * the GL thread.
+	 *
+	 * @param millis the most time to spend
+	 * @return true if everything is loaded
+	 */
+	public boolean update(int millis) {
+		if (loadMillis >= 0)
+			return true;
+		if (!manager.update(millis))
+			return false;
+		loadMillis = (System.nanoTime() - startNanos) / 1e6f;
+		return true;
+	}
+
+	/**
+	 * Blocks until everything is loaded. Must be called on the GL thread.
+	 */
+	public void finishLoading() {
+		while (!update(Integer.MAX_VALUE))
+			;
+	}
+
+	/**
+	 * @return how much has been loaded, from 0 to 1
+	 */
+	public float getProgress() {
+		return manager.getProgress();
+	}
+
+	/**
+	 * @return how long loading took in milliseconds, or -1 while loading
+	 */
+	public float getLoadMillis() {
+		return loadMillis;
+	}
+
+	/**
+	 * @param descriptor the asset
+	 * @return the loaded asset
+	 */
+	public <T> T get(AssetDescriptor<T> descriptor) {
+		return manager.get(descriptor);
+	}
+
+	@Override
+	public void dispose() {
+		manager.dispose();
+	}
+
+}
@@ -20,6 +20,11 @@ public interface GameInterface {
 	 */
 	final int[] WHEEL_SPOTS = { 3, 10, 3, 5, 3, 20, 3, 5, 3, 10, 3, 5, 5 };
 
+	/**
+	 * The values of the spots a bet can be placed on.
+	 */
+	final int[] BET_SPOTS = { 1, 3, 5, 10, 20 };
+
 	/**
 	 * Number of yellow spots on the wheel
 	 */
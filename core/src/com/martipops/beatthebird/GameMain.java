@@ -1,41 +1,167 @@
 package com.martipops.beatthebird;
 
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.util.Arrays;
+
 import com.badlogic.gdx.ApplicationAdapter;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input;
 import com.badlogic.gdx.InputMultiplexer;
 import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.files.FileHandle;
 import com.badlogic.gdx.graphics.GL20;
-import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.scenes.scene2d.ui.Image;
+import com.badlogic.gdx.utils.GdxRuntimeException;
 
 public class GameMain extends ApplicationAdapter implements InputProcessor, GameInterface {
 
 	// Variables are static to make the objects globally accessable
 	public static WheelActor wheel;
-	public static Texture wheelTexture, coinTenTexture, numbersTexture, triangleTexture, backgroundTexture;
+	public static TextureAtlas atlas;
 	public static Inventory playerInventory;
-	public static BetSpot betSpotOne, betSpotThree, betSpotFive, betSpotTen, betSpotTwenty;
 	public static Stage stage;
 	public static Actor touchActor;
 	public static TextureRegion wheelRegion, coinTenRegion, numbersRegion, triangleRegion, backgroundRegion;
 	public static Image triangleImage, numbersImage, backgroundImage;
 	public static BetLogic bets;
 	public static GameUI ui;
+	public static RenderStats renderStats;
+	public static FrameMetrics metrics;
+	public static MetricsOverlay metricsOverlay;
+	public static SpinLog spinLog;
+	public static RoundJournal journal;
+	public static WalletStore wallet;
+
+	/**
+	 * The id the player's balance is saved under in the wallet
+	 */
+	public static final int PLAYER_ID = 0;
+	/**
+	 * The wheel layout file in the storage directory, the default layout is
+	 * used if there is none. Pressing 'w' loads it again between rounds.
+	 */
+	static final String LAYOUT_FILE = "wheel.layout";
+
+	/**
+	 * The most time each frame spends loading assets while the loading screen is
+	 * shown, in milliseconds
+	 */
+	static final int LOAD_MILLIS_PER_FRAME = 12;
+
+	/**
+	 * The time scales auto-play can run the game at
+	 */
+	static final float[] TIME_SCALES = { 1, 2, 4, 8 };
+
+	/**
+	 * The coins a click, scroll notch or drag step moves while shift is held
+	 */
+	static final int SHIFT_COINS = 10;
+
+	/**
+	 * The coins a click, scroll notch or drag step moves while control is held
+	 */
+	static final int CONTROL_COINS = 100;
+
+	/**
+	 * The pixels the cursor moves up or down for each drag step
+	 */
+	static final int DRAG_PIXELS = 8;
+
+	/**
+	 * The bets of the last round that had any, indexed by spot value, for
+	 * repeating them with 'b'
+	 */
+	private static final int[] lastBets = new int[WheelLayout.MAX_SPOT + 1];
+	/**
+	 * The screen y the current drag started at
+	 */
+	private static int dragY;
+	/**
+	 * The drag steps already bet during the current drag
+	 */
+	private static int dragSteps;
+
+	public static int lastSpot;
+	public static long rounds;
+	public static AutoPlay autoPlay;
+	private static int timeScale;
+	public static GameAssets assets;
+	public static ResourceRegistry resources;
+	public static HitIndex hitIndex;
+	private LoadingScreen loadingScreen;
+	/**
+	 * The directory the wallet, round journal, spin logs, layout and metrics are
+	 * kept in, or null for the local storage directory
+	 */
+	private final File storage;
+
+	/**
+	 * Constructs the game, keeping its files in the local storage directory.
+	 */
+	public GameMain() {
+		this(null);
+	}
+
+	/**
+	 * Constructs the game, keeping its files in a directory of its own. Headless
+	 * runs use this so they never touch the player's wallet and journal.
+	 *
+	 * @param storage the directory for the game's files, or null for the local
+	 *                storage directory
+	 */
+	public GameMain(File storage) {
+		this.storage = storage;
+	}
 
 	/**
 	 * ApplicationAdapter override that will be called on the creation of the window
-	 * Constructs textures, game actors, and map input processors.
-	 * Also sets the player inventory to 100.
+	 * Queues the assets for loading and shows the loading screen. The game itself
+	 * is created once everything is loaded.
 	 */
 	@Override
 	public void create() {
+		metrics = new FrameMetrics(); // times startup from here
+		assets = new GameAssets();
+		resources = new ResourceRegistry(assets);
+		loadingScreen = new LoadingScreen();
+	}
+
+	/**
+	 * Constructs game actors and map input processors once the assets are loaded.
+	 * Also restores the player's totals.
+	 */
+	private void createGame() {
+		loadingScreen.dispose();
+		loadingScreen = null;
+		Gdx.app.log("GameMain", "Assets loaded in " + assets.getLoadMillis() + " ms");
 		stage = new Stage();
-		loadTextures();
-		createActors();
-		playerInventory.setTotal(100);
+		renderStats = new RenderStats(Gdx.graphics, stage.getBatch());
+		atlas = assets.get(GameAssets.ATLAS);
+		WheelLayout layout = loadLayout();
+		createActors(layout == null ? WheelLayout.DEFAULT : layout);
+		hitIndex = new HitIndex(stage.getRoot(), SCREEN_WIDTH, SCREEN_HEIGHT);
+		boolean recovered = recoverTotals();
+		openWallet(recovered);
+		returnStaleBets();
+		// spin outcomes come from their own seeded generator and every input is
+		// logged, so a session can be replayed with SpinLog
+		long seed = System.nanoTime();
+		spinLog = new SpinLog(seed, playerInventory.total + bets.getTotal());
+		if (wheel.getSpotTable() != SpotTable.DEFAULT)
+			spinLog.layout(wheel.getSpotTable().getLayout());
+		for (BetSpot spot : bets)
+			if (spot.total > 0)
+				spinLog.bet(spot.spotValue, spot.total);
+		wheel.setRandom(new TableRandom(seed));
+		wheel.setLog(spinLog);
 		/**
 		 * Set up multiple input processors to account for objects on stage as well as
 		 * touch events inhereted from InputProcessor (self)
@@ -44,51 +170,236 @@ public class GameMain extends ApplicationAdapter implements InputProcessor, Game
 		Gdx.input.setInputProcessor(multiplexer);
 	}
 
+	/**
+	 * Blocks until every asset is loaded and creates the game, for headless runs
+	 * that step the game without calling render.
+	 */
+	public void finishLoading() {
+		if (loadingScreen == null)
+			return;
+		assets.finishLoading();
+		createGame();
+	}
+
 	/**
 	 * This method renders the stage by clearing the screen and drawing all actors
-	 * on the stage. Called for each frame.
+	 * on the stage. Called for each frame. Until the assets are loaded, it loads
+	 * for part of the frame and draws the loading screen instead.
 	 */
 	@Override
 	public void render() {
 		Gdx.gl.glClearColor(0, 0, 0, 1); // Set the color to clear the screen with
 		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT); // Clear the screen
-		stage.act(Gdx.graphics.getDeltaTime()); // Update all actors on the stage
+		if (loadingScreen != null) {
+			if (!assets.update(LOAD_MILLIS_PER_FRAME)) {
+				loadingScreen.draw(assets.getProgress());
+				metrics.loadingFrame();
+				return;
+			}
+			createGame();
+		}
+		update(Gdx.graphics.getDeltaTime());
+	}
+
+	/**
+	 * Acts and draws the stage for one frame. Called by render with the real frame
+	 * time, or directly by headless runs to step simulated frames.
+	 *
+	 * @param delta the time elapsed since the last frame
+	 */
+	public void update(float delta) {
+		metrics.beginAct();
+		stage.act(delta * TIME_SCALES[timeScale]); // Update all actors on the stage
+		metrics.endAct();
+		renderStats.begin();
+		metrics.beginDraw();
 		stage.draw(); // Draw all actors on the stage
+		renderStats.end();
+		metrics.endDraw(renderStats);
 	}
 
 	/**
-	 * Disposes textures from memory. Called on exit
+	 * Disposes textures from memory and reports any that leaked. Called on exit
 	 */
 	@Override
 	public void dispose() {
-		wheelTexture.dispose();
-		coinTenTexture.dispose();
-		numbersTexture.dispose();
-		stage.dispose();
+		if (loadingScreen != null) {
+			// closed before the game was created
+			loadingScreen.dispose();
+		} else {
+			saveSpinLog();
+			closeJournal();
+			closeWallet();
+			playerInventory.dispose();
+			for (BetSpot spot : bets)
+				spot.dispose();
+			ui.dispose();
+			metricsOverlay.dispose();
+			stage.dispose();
+		}
+		// reports anything that was acquired and never released
+		resources.dispose();
+		assets.dispose();
+		ResourceRegistry.reportGlLeaks();
+	}
+
+	/**
+	 * Opens the round journal and replays it to get back the totals of the player
+	 * and every bet spot. Starts the player at 100 if there is no journal yet, or
+	 * without a journal if it can't be opened.
+	 *
+	 * @return true if the totals came from the journal
+	 */
+	private boolean recoverTotals() {
+		try {
+			journal = new RoundJournal(local("rounds.journal").file());
+		} catch (IOException e) {
+			Gdx.app.error("GameMain", "Could not open the round journal", e);
+			journal = null;
+		}
+		if (journal == null || journal.getRecovered().isEmpty()) {
+			playerInventory.setTotal(100);
+			if (journal != null)
+				journal.balance(100);
+			return false;
+		}
+		// a round cut off by a crash was never settled, so its bets stay down
+		RoundJournal.State state = journal.getRecovered();
+		playerInventory.setTotal(state.getPlayer());
+		if (isSameLayout(state, wheel.getSpotTable().getLayout()))
+			for (BetSpot spot : bets)
+				spot.setTotal(state.getBet(spot.spotValue));
+		return true;
+	}
+
+	/**
+	 * Gives the player back the recovered bets {@link #recoverTotals()} could not
+	 * put down again, once the wallet has set the player's balance, and records
+	 * the layout in the journal from here on.
+	 */
+	private void returnStaleBets() {
+		if (journal == null)
+			return;
+		RoundJournal.State state = journal.getRecovered();
+		WheelLayout layout = wheel.getSpotTable().getLayout();
+		boolean sameLayout = isSameLayout(state, layout);
+		for (int value = 0; value <= WheelLayout.MAX_SPOT; value++) {
+			int bet = state.getBet(value);
+			if (bet != 0 && (!sameLayout || bets.get(value) == null)) {
+				playerInventory.addTotal(bet);
+				journal.bet(value, -bet);
+			}
+		}
+		journal.layout(layout);
 	}
 
 	/**
-	 * Loads texture files into memory for rendering use.
+	 * Recovered bets stay down only on the layout they were placed on, switching
+	 * layouts gives every bet back too. Journals from before layouts were
+	 * recorded keep the bets on spots the layout still has.
+	 *
+	 * @param state  the recovered state
+	 * @param layout the layout of the wheel
+	 * @return true if the bets were placed on the layout
 	 */
-	private void loadTextures() {
-		wheelTexture = new Texture(Gdx.files.internal("wheel.png"));
-		coinTenTexture = new Texture(Gdx.files.internal("diamond.png"));
-		numbersTexture = new Texture(Gdx.files.internal("numbers.png"));
-		triangleTexture = new Texture(Gdx.files.internal("triangle.png"));
-		backgroundTexture = new Texture(Gdx.files.internal("background.png"));
+	private static boolean isSameLayout(RoundJournal.State state, WheelLayout layout) {
+		return state.getLayout() == 0 || state.getLayout() == layout.getFingerprint();
+	}
+
+	/**
+	 * Opens the player's wallet and saves the player's balance to it from now on.
+	 * The journal is written on this thread before anything else, while the
+	 * wallet is written behind it from a background thread and can lag after a
+	 * crash, so totals recovered from the journal win and the wallet is brought
+	 * up to them. A balance already in the wallet is only used when the journal
+	 * is new or can't be opened, and the journal is told about it, so both agree
+	 * from here.
+	 *
+	 * @param recovered true if the totals came from the journal
+	 */
+	private void openWallet(boolean recovered) {
+		try {
+			wallet = new WalletStore(local("wallet").file());
+		} catch (IOException e) {
+			Gdx.app.error("GameMain", "Could not open the wallet", e);
+			return;
+		}
+		wallet.setListener(new WalletStore.Listener() {
+			@Override
+			public void snapshotFailed(IOException cause) {
+				Gdx.app.error("GameMain", "Could not write a wallet snapshot, the wallet journal keeps growing", cause);
+			}
+		});
+		if (!recovered && wallet.contains(PLAYER_ID) && wallet.get(PLAYER_ID, 0) != playerInventory.total) {
+			playerInventory.setTotal(wallet.get(PLAYER_ID, 0));
+			if (journal != null)
+				journal.balance(playerInventory.total);
+		}
+		playerInventory.setWallet(wallet, PLAYER_ID);
+		if (wallet.get(PLAYER_ID, -1) != playerInventory.total)
+			playerInventory.setTotal(playerInventory.total);
+	}
+
+	/**
+	 * Writes the last balances and closes the wallet.
+	 */
+	private void closeWallet() {
+		if (wallet == null)
+			return;
+		try {
+			wallet.close();
+		} catch (IOException e) {
+			Gdx.app.error("GameMain", "Could not close the wallet", e);
+		}
+	}
+
+	/**
+	 * Commits and closes the round journal.
+	 */
+	private void closeJournal() {
+		if (journal == null)
+			return;
+		try {
+			journal.close();
+		} catch (IOException e) {
+			Gdx.app.error("GameMain", "Could not close the round journal", e);
+		}
+	}
+
+	/**
+	 * @param name the name of one of the game's files
+	 * @return the file in the game's storage directory
+	 */
+	private FileHandle local(String name) {
+		return storage == null ? Gdx.files.local(name) : Gdx.files.absolute(new File(storage, name).getPath());
+	}
+
+	/**
+	 * Writes the spin log of this session to spins-[time].log in the game's
+	 * storage directory.
+	 */
+	private void saveSpinLog() {
+		String name = "spins-" + System.currentTimeMillis() + ".log";
+		try (OutputStream out = local(name).write(false)) {
+			spinLog.writeTo(out);
+		} catch (IOException | GdxRuntimeException e) {
+			Gdx.app.error("GameMain", "Could not write " + name, e);
+		}
 	}
 
 	/**
 	 * Creates game objects, like actors and Texture Regions and adds them to
 	 * respective locations on a stage, built from the lowest layer to the highest
 	 * layer
+	 *
+	 * @param layout the layout of the wheel and the bet spots
 	 */
-	private void createActors() {
-		wheelRegion = new TextureRegion(wheelTexture);
-		coinTenRegion = new TextureRegion(coinTenTexture);
-		numbersRegion = new TextureRegion(numbersTexture);
-		triangleRegion = new TextureRegion(triangleTexture);
-		backgroundRegion = new TextureRegion(backgroundTexture);
+	private void createActors(WheelLayout layout) {
+		wheelRegion = atlas.findRegion("wheel");
+		coinTenRegion = atlas.findRegion("diamond");
+		numbersRegion = atlas.findRegion("numbers");
+		triangleRegion = atlas.findRegion("triangle");
+		backgroundRegion = atlas.findRegion("background");
 
 		// sets the background image and bounds
 		backgroundImage = new Image(backgroundRegion);
@@ -97,6 +408,7 @@ public class GameMain extends ApplicationAdapter implements InputProcessor, Game
 		wheel = new WheelActor(wheelRegion);
 		wheel.setScale(1.2f);
 		wheel.setPosition(GameInterface.SCREEN_WIDTH / 6, GameInterface.SCREEN_HEIGHT / 2.5f);
+		wheel.setSpotTable(layout == WheelLayout.DEFAULT ? SpotTable.DEFAULT : new SpotTable(layout));
 
 		// sets triangle image and location
 		triangleImage = new Image(triangleRegion);
@@ -111,28 +423,15 @@ public class GameMain extends ApplicationAdapter implements InputProcessor, Game
 				GameInterface.SCREEN_HEIGHT - 25);
 		playerInventory.setName("Player");
 
-		// set values for bet spots
-		betSpotOne = new BetSpot(115, 120, 215, 225, 1);
-		betSpotOne.setName("One");
-		betSpotThree = new BetSpot(225, 120, 325, 225, 3);
-		betSpotThree.setName("Three");
-		betSpotFive = new BetSpot(335, 120, 435, 225, 5);
-		betSpotFive.setName("Five");
-		betSpotTen = new BetSpot(445, 120, 545, 225, 10);
-		betSpotTen.setName("Ten");
-		betSpotTwenty = new BetSpot(555, 120, 655, 225, 20);
-		betSpotTwenty.setName("Twenty");
+		// set values for bet spots from the layout
+		createBetSpots(layout);
 
 		// creates the UI
 		ui = new GameUI();
 
-		// set initial bets
-		bets = new BetLogic();
-		bets.add(betSpotOne);
-		bets.add(betSpotThree);
-		bets.add(betSpotFive);
-		bets.add(betSpotTen);
-		bets.add(betSpotTwenty);
+		// track frame metrics for the inventories
+		metrics.watch(playerInventory);
+		metricsOverlay = new MetricsOverlay(metrics);
 
 		// add actors to stage
 		stage.addActor(backgroundImage);
@@ -140,13 +439,77 @@ public class GameMain extends ApplicationAdapter implements InputProcessor, Game
 		stage.addActor(numbersImage);
 		stage.addActor(triangleImage);
 		stage.addActor(playerInventory);
-		stage.addActor(betSpotOne);
-		stage.addActor(betSpotThree);
-		stage.addActor(betSpotFive);
-		stage.addActor(betSpotTen);
-		stage.addActor(betSpotTwenty);
+		for (BetSpot spot : bets)
+			stage.addActor(spot);
 		stage.addActor(ui);
+		stage.addActor(metricsOverlay);
+
+	}
 
+	/**
+	 * Creates a bet spot for every bet of a layout and watches their coins.
+	 *
+	 * @param layout the layout
+	 */
+	private static void createBetSpots(WheelLayout layout) {
+		bets = new BetLogic();
+		for (int i = 0; i < layout.getBetCount(); i++) {
+			BetSpot spot = new BetSpot(layout.getBetBound(i, 0), layout.getBetBound(i, 1), layout.getBetBound(i, 2),
+					layout.getBetBound(i, 3), layout.getBetValue(i));
+			spot.setName(layout.getBetName(i));
+			bets.add(spot);
+			metrics.watch(spot);
+		}
+	}
+
+	/**
+	 * Loads the layout from {@link #LAYOUT_FILE}.
+	 *
+	 * @return the layout, the default layout if there is no file, or null if the
+	 *         file can't be loaded
+	 */
+	WheelLayout loadLayout() {
+		FileHandle file = local(LAYOUT_FILE);
+		if (!file.exists())
+			return WheelLayout.DEFAULT;
+		try {
+			return WheelLayout.load(file.file());
+		} catch (IOException | IllegalArgumentException e) {
+			Gdx.app.error("GameMain", "Could not load " + LAYOUT_FILE, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Switches the wheel to another layout between rounds. Bets on the old spots
+	 * go back to the player, then the bet spots are built again and every spin
+	 * from now on lands through the new layout's table. The switch is logged and
+	 * journaled after the bets going back, so replays switch at the same point. The wheel and numbers
+	 * images stay the same.
+	 *
+	 * @param layout the layout
+	 * @return true if the layout was switched, false while the wheel is spinning
+	 */
+	public static boolean applyLayout(WheelLayout layout) {
+		if (wheel.isSpinning())
+			return false;
+		for (BetSpot spot : bets) {
+			if (spot.total > 0)
+				moveCoins(spot, spot.total / Inventory.COIN_VALUE);
+			spot.remove();
+			metrics.unwatch(spot);
+			spot.dispose();
+		}
+		wheel.setSpotTable(new SpotTable(layout));
+		spinLog.layout(layout);
+		if (journal != null)
+			journal.layout(layout);
+		createBetSpots(layout);
+		for (BetSpot spot : bets)
+			stage.getRoot().addActorBefore(ui, spot);
+		hitIndex.rebuild();
+		Gdx.app.log("GameMain", "Switched to the " + layout + " layout");
+		return true;
 	}
 
 	/**
@@ -154,38 +517,158 @@ public class GameMain extends ApplicationAdapter implements InputProcessor, Game
 	 * the bets
 	 */
 	public static void wheelLanded(int spot) {
-		int winamt = bets.calculateWinnings(spot);
+		// moveCoins only lets bets onto a spot whose win fits in the balance
+		int winamt = (int) bets.calculateWinnings(spot);
+		lastSpot = spot;
+		rounds++;
+		if (journal != null)
+			journal.settle(spot, winamt);
+		ui.showWin(winamt);
 		playerInventory.addTotal(winamt);
+		if (bets.getTotal() != 0) {
+			Arrays.fill(lastBets, 0);
+			for (BetSpot b : bets)
+				lastBets[b.spotValue] = b.total;
+		}
 		bets.clearBets();
 	}
 
+	/**
+	 * Finds the actor under the cursor through the hit index and remembers it as
+	 * the touched actor.
+	 *
+	 * @return the actor under the cursor, or null
+	 */
 	public Actor touchHit() {
-		touchActor = stage.hit(Gdx.input.getX(), Gdx.graphics.getHeight() - Gdx.input.getY(), false);
+		touchActor = hitIndex.hit(Gdx.input.getX(), Gdx.graphics.getHeight() - Gdx.input.getY(), false);
 		return touchActor;
 	}
 
 	/**
 	 * This method is used to register a bet by adding or subtracting coins from the
-	 * player's inventory. It checks if the wheel is currently spinning and if the
-	 * hit object is an instance of Inventory. If the hit object is the player's
-	 * inventory or the wheel is spinning, it returns false. Otherwise, it transfers
-	 * the specified amount of coins to the hit inventory using the transferCoin
-	 * method of the player's inventory.
+	 * player's inventory on the bet spot under the cursor. The amount is multiplied
+	 * by the held modifier key, see {@link #getBetStep()}.
 	 * 
 	 * @param amount the amount of coins to add or subtract from the hit inventory
-	 * @return true if the coin is transferred.
+	 * @return true if every coin is transferred.
 	 */
 	public boolean registerBet(int amount) {
+		return betOn(touchHit(), amount * getBetStep());
+	}
+
+	/**
+	 * Moves any number of coins between the player and a bet spot in one transfer,
+	 * and one log and journal record. Input resolves the target once per event
+	 * and passes it in. Only as many coins as the source has are moved.
+	 *
+	 * @param target the actor the input is on
+	 * @param coins  the coins to move, negative to move them from the player
+	 * @return true if every coin moved, false if the target is not a bet spot or
+	 *         the wheel is spinning
+	 */
+	static boolean betOn(Actor target, int coins) {
+		if (wheel.isSpinning() || !(target instanceof BetSpot) || coins == 0)
+			return false;
+		return moveCoins((BetSpot) target, coins);
+	}
+
+	/**
+	 * Bets the player's whole balance, in whole coins, on a bet spot.
+	 *
+	 * @param target the actor the input is on
+	 * @return true if the balance was bet
+	 */
+	public static boolean betAll(Actor target) {
+		return betOn(target, -(playerInventory.total / Inventory.COIN_VALUE));
+	}
+
+	/**
+	 * Places the bets of the last round that had any again, on top of the current
+	 * bets. Either every bet is placed or none is.
+	 *
+	 * @return true if the bets were placed
+	 */
+	public static boolean repeatBets() {
 		if (wheel.isSpinning())
 			return false;
-		Actor a = touchHit();
-		if (!(a instanceof Inventory))
+		long total = 0;
+		for (BetSpot spot : bets)
+			total += lastBets[spot.spotValue];
+		if (total == 0 || total > playerInventory.total)
 			return false;
-		Inventory i = ((Inventory) a);
-		if (i.getName().equals("player"))
+		for (BetSpot spot : bets)
+			if (lastBets[spot.spotValue] != 0)
+				moveCoins(spot, -lastBets[spot.spotValue] / Inventory.COIN_VALUE);
+		return true;
+	}
+
+	/**
+	 * @return the coins one click, scroll notch or drag step moves: 1, or
+	 *         {@link #SHIFT_COINS} or {@link #CONTROL_COINS} while those keys are
+	 *         held
+	 */
+	static int getBetStep() {
+		if (Gdx.input.isKeyPressed(Input.Keys.CONTROL_LEFT) || Gdx.input.isKeyPressed(Input.Keys.CONTROL_RIGHT))
+			return CONTROL_COINS;
+		if (Gdx.input.isKeyPressed(Input.Keys.SHIFT_LEFT) || Gdx.input.isKeyPressed(Input.Keys.SHIFT_RIGHT))
+			return SHIFT_COINS;
+		return 1;
+	}
+
+	/**
+	 * Places a bet without any input, for bots and tests. Either the whole amount
+	 * moves or nothing does.
+	 *
+	 * @param spotValue the value of the spot to bet on
+	 * @param diamonds  the diamonds to move onto the spot, negative to take them
+	 *                  back, in whole coins
+	 * @return true if the bet was placed
+	 */
+	public static boolean placeBet(int spotValue, int diamonds) {
+		BetSpot spot = bets.get(spotValue);
+		if (spot == null || wheel.isSpinning() || diamonds == 0 || diamonds % Inventory.COIN_VALUE != 0)
 			return false;
-		playerInventory.transferCoin(i, amount);
-		return false;
+		if (diamonds > playerInventory.total || -diamonds > spot.total)
+			return false;
+		return moveCoins(spot, -diamonds / Inventory.COIN_VALUE);
+	}
+
+	/**
+	 * Moves coins between the player and an inventory and records the bet in the
+	 * spin log and the round journal. Nothing moves onto a bet spot if its win
+	 * could not be added to the player's balance.
+	 *
+	 * @param i      the inventory
+	 * @param amount the coins to move, negative to move them from the player
+	 * @return true if every coin moved
+	 */
+	static boolean moveCoins(Inventory i, int amount) {
+		if (amount < 0 && i instanceof BetSpot) {
+			long stake = Math.min(-(long) amount, playerInventory.total / Inventory.COIN_VALUE) * Inventory.COIN_VALUE;
+			long winnings = GameTable.payout(((BetSpot) i).spotValue, i.total + stake);
+			if (winnings > Integer.MAX_VALUE - (playerInventory.total - stake))
+				return false;
+		}
+		int before = i.total;
+		boolean moved = playerInventory.transferCoin(i, amount);
+		if (i instanceof BetSpot && i.total != before) {
+			spinLog.bet(((BetSpot) i).spotValue, i.total - before);
+			if (journal != null)
+				journal.bet(((BetSpot) i).spotValue, i.total - before);
+		}
+		return moved;
+	}
+
+	/**
+	 * Sets the player's balance, logging and journaling it like any other change.
+	 *
+	 * @param balance the new balance
+	 */
+	public static void resetBalance(int balance) {
+		playerInventory.setTotal(balance);
+		spinLog.balance(balance);
+		if (journal != null)
+			journal.balance(balance);
 	}
 
 	/**
@@ -193,7 +676,9 @@ public class GameMain extends ApplicationAdapter implements InputProcessor, Game
 	 * Description: This method is used to register a bet by adding or subtracting
 	 * coins from the player's inventory. It checks if the wheel is currently
 	 * spinning and if the hit object is an instance of Inventory. Right clicking
-	 * will subtract coins and left clicking will add coins.
+	 * will subtract coins and left clicking will add coins. Clicking the wheel
+	 * spins it. Every click also starts a drag, see
+	 * {@link #touchDragged(int, int, int)}.
 	 * 
 	 * @param screenX the x-coordinate of the touch on the screen
 	 * @param screenY the y-coordinate of the touch on the screen
@@ -203,16 +688,21 @@ public class GameMain extends ApplicationAdapter implements InputProcessor, Game
 	 */
 	@Override
 	public boolean touchDown(int screenX, int screenY, int pointer, int button) {
-		touchHit();
-		if (button == 0)
-			registerBet(-1);
+		Actor target = touchHit();
+		dragY = screenY;
+		dragSteps = 0;
+		if (target == wheel)
+			wheel.spin();
+		else if (button == 0)
+			betOn(target, -getBetStep());
 		else if (button == 1)
-			registerBet(1);
+			betOn(target, getBetStep());
 		return false;
 	}
 
 	/**
-	 * Register bets when user scrolls while the cursor is over an inventory spot
+	 * Register bets when user scrolls while the cursor is over an inventory spot.
+	 * Several notches in one event move their coins together.
 	 * 
 	 * @param amountX the amount of horizontal scrolling
 	 * @param amountY the amount of vertical scrolling
@@ -220,7 +710,10 @@ public class GameMain extends ApplicationAdapter implements InputProcessor, Game
 	 */
 	@Override
 	public boolean scrolled(float amountX, float amountY) {
-		registerBet((amountY < 0) ? -1 : 1);
+		if (amountY == 0)
+			return false;
+		int notches = Math.max(1, Math.round(Math.abs(amountY)));
+		registerBet((amountY < 0) ? -notches : notches);
 		return false;
 	}
 
@@ -235,16 +728,78 @@ public class GameMain extends ApplicationAdapter implements InputProcessor, Game
 	public boolean keyTyped(char character) {
 		switch (character) {
 			case 'c':
-				playerInventory.setTotal(100);
+				resetBalance(100);
 				super.render();
 				break;
+			case 'a':
+				toggleAutoPlay();
+				break;
+			case '[':
+				timeScale = Math.max(0, timeScale - 1);
+				break;
+			case ']':
+				timeScale = Math.min(TIME_SCALES.length - 1, timeScale + 1);
+				break;
 			case 'l':
 				System.out.println(Gdx.input.getX() + ", " + (Gdx.graphics.getHeight() - Gdx.input.getY()));
 				break;
+			case 'r':
+				Gdx.app.log("GameMain", renderStats.toString());
+				break;
+			case 'm':
+				metricsOverlay.toggle();
+				break;
+			case 'x':
+				exportMetrics();
+				break;
+			case 'b':
+				repeatBets();
+				break;
+			case 'g':
+				betAll(touchHit());
+				break;
+			case 'w':
+				WheelLayout layout = loadLayout();
+				if (layout != null && applyLayout(layout))
+					ui.showPopUp(layout.getName());
+				break;
 		}
 		return false;
 	}
 
+	/**
+	 * Starts or stops a spread bot playing on screen. The '[' and ']' keys change
+	 * how fast the game runs while it plays.
+	 */
+	private void toggleAutoPlay() {
+		if (autoPlay == null) {
+			autoPlay = new AutoPlay(BotRunner.createBot("spread", new TableRandom(System.nanoTime())),
+					new StageTable());
+			stage.addActor(autoPlay);
+		} else {
+			autoPlay.remove();
+			autoPlay = null;
+			timeScale = 0;
+		}
+		hitIndex.rebuild();
+	}
+
+	/**
+	 * Writes the recorded frame metrics to metrics-[time].csv and .json in the
+	 * game's storage directory.
+	 */
+	private void exportMetrics() {
+		String name = "metrics-" + System.currentTimeMillis();
+		try (Writer csv = local(name + ".csv").writer(false, "UTF-8");
+				Writer json = local(name + ".json").writer(false, "UTF-8")) {
+			metrics.writeCsv(csv);
+			metrics.writeJson(json);
+			Gdx.app.log("GameMain", "Wrote " + name + ".csv and " + name + ".json");
+		} catch (IOException e) {
+			Gdx.app.error("GameMain", "Could not write metrics", e);
+		}
+	}
+
 	/**
 	 * Resets the touchActor to null when a touch (click) is released
 	 */
@@ -255,10 +810,17 @@ public class GameMain extends ApplicationAdapter implements InputProcessor, Game
 	}
 
 	/**
-	 * Override from InputProcessor interface
+	 * Dragging up from a bet spot after a click adds a step of coins every
+	 * {@link #DRAG_PIXELS} pixels, and dragging back down takes them back. The
+	 * spot touched on the click stays the target, so dragging never hit tests.
 	 */
 	@Override
 	public boolean touchDragged(int screenX, int screenY, int pointer) {
+		int steps = (dragY - screenY) / DRAG_PIXELS;
+		if (steps != dragSteps && touchActor instanceof BetSpot) {
+			betOn(touchActor, (dragSteps - steps) * getBetStep());
+			dragSteps = steps;
+		}
 		return false;
 	}
 
@@ -0,0 +1,418 @@
+package com.martipops.beatthebird;
+
+import java.util.Arrays;
+
+/**
+ * Class GameTable:
+ * One game table without any libGDX classes: its own wheel and layout, the
+ * player's balance and the bets on each spot. Unlike {@link GameMain}, nothing here is
+ * static, so one JVM can run as many tables as it has memory for.
+ *
+ * The outcome of a spin is decided as soon as it starts using a
+ * {@link SpinSolver}, so stepping a spinning table only counts down the steps
+ * until the wheel stops, which is when a client animating the same spin would
+ * see it land.
+ *
+ * A table is not thread safe. {@link TableServer} makes sure each table is only
+ * touched by the thread that owns it. The balance is the exception: it lives in
+ * a {@link SharedWallet}, so a player can sit at tables on different threads
+ * and bet from the same balance.
+ */
+public class GameTable implements GameInterface, BettingTable {
+
+	/**
+	 * Listener interface for when a round on the table is settled
+	 */
+	public interface Listener {
+		/**
+		 * Called after the wheel stops and the bets are paid out.
+		 *
+		 * @param table    the table the round was played on
+		 * @param spot     the spot the wheel landed on
+		 * @param winnings the amount paid back to the player
+		 */
+		void settled(GameTable table, int spot, long winnings);
+	}
+
+	/**
+	 * The id of the table
+	 */
+	private final int id;
+	/**
+	 * Decides where each spin stops and how many steps it takes
+	 */
+	private final SpinSolver solver;
+	/**
+	 * The rotation of the wheel when it is not spinning
+	 */
+	private float rotation;
+	/**
+	 * The rotation the current spin stops at
+	 */
+	private float stopRotation;
+	/**
+	 * The steps left until the current spin stops, 0 when not spinning
+	 */
+	private int remainingSteps;
+	/**
+	 * The random generator for spin speeds
+	 */
+	private final TableRandom random;
+	/**
+	 * Records every input for replays, or null
+	 */
+	private SpinLog log;
+	/**
+	 * The table the wheel lands through
+	 */
+	private SpotTable spots = SpotTable.DEFAULT;
+	/**
+	 * The amount bet on each spot, indexed by spot value
+	 */
+	private final int[] bets = new int[WheelLayout.MAX_SPOT + 1];
+	/**
+	 * Holds the player's balance
+	 */
+	private final SharedWallet wallet;
+	/**
+	 * The id of the player in the wallet
+	 */
+	private final int player;
+	/**
+	 * The total amount currently bet
+	 */
+	private int betTotal;
+	/**
+	 * The number of rounds settled
+	 */
+	private long rounds;
+	/**
+	 * The spot the wheel last landed on, 0 before the first round
+	 */
+	private int lastSpot;
+	/**
+	 * The listener notified when a round is settled
+	 */
+	private Listener listener;
+
+	/**
+	 * Constructs a table.
+	 *
+	 * @param id      the id of the table
+	 * @param balance the player's starting balance
+	 * @param random  the generator for spin speeds, owned by this table
+	 * @param solver  the solver for the step the table is stepped with
+	 */
+	public GameTable(int id, int balance, TableRandom random, SpinSolver solver) {
+		this(id, new SharedWallet(1), 0, random, solver);
+		wallet.set(player, balance);
+	}
+
+	/**
+	 * Constructs a table that bets from a player's balance in a wallet other
+	 * tables may share.
+	 *
+	 * @param id     the id of the table
+	 * @param wallet holds the player's balance
+	 * @param player the id of the player in the wallet
+	 * @param random the generator for spin speeds, owned by this table
+	 * @param solver the solver for the step the table is stepped with
+	 */
+	public GameTable(int id, SharedWallet wallet, int player, TableRandom random, SpinSolver solver) {
+		this.id = id;
+		this.solver = solver;
+		this.wallet = wallet;
+		this.player = player;
+		this.random = random;
+	}
+
+	/**
+	 * Moves an amount from the balance onto a spot, or back off it when the
+	 * amount is negative. A bet whose win could not be added to the balance is
+	 * refused, so settling never has to fail after the stake was taken.
+	 *
+	 * @param spot   the value of the spot to bet on
+	 * @param amount the amount to bet, negative to take a bet back
+	 * @return true if the bet was placed
+	 */
+	@Override
+	public boolean placeBet(int spot, int amount) {
+		if (isSpinning() || !spots.getLayout().isBetSpot(spot))
+			return false;
+		if (-amount > bets[spot] || amount > Integer.MAX_VALUE - betTotal)
+			return false;
+		if (amount > 0) {
+			long winnings = payout(spot, (long) bets[spot] + amount);
+			if (wallet.getBalance(player) - amount > Long.MAX_VALUE - winnings || !wallet.debit(player, amount))
+				return false;
+		} else if (amount < 0 && !wallet.credit(player, -amount)) {
+			return false;
+		}
+		bets[spot] += amount;
+		betTotal += amount;
+		if (log != null)
+			log.bet(spot, amount);
+		return true;
+	}
+
+	/**
+	 * Spins the wheel with a random speed.
+	 *
+	 * @return true if the wheel started spinning
+	 */
+	@Override
+	public boolean spin() {
+		// only draw a speed for spins that happen, so replays stay in sync
+		if (isSpinning())
+			return false;
+		if (log != null)
+			log.spin();
+		start(random.nextSpinSpeed());
+		return true;
+	}
+
+	/**
+	 * Spins the wheel with a specified speed.
+	 *
+	 * @param speed the speed to spin the wheel with
+	 * @return true if the wheel started spinning
+	 */
+	public boolean spin(int speed) {
+		if (isSpinning())
+			return false;
+		if (log != null)
+			log.spin(speed);
+		start(speed);
+		return true;
+	}
+
+	/**
+	 * Decides where a spin stops and starts counting down to it.
+	 *
+	 * @param speed the speed to spin the wheel with
+	 */
+	private void start(int speed) {
+		stopRotation = solver.getStopRotation(rotation, speed);
+		remainingSteps = solver.getSteps(speed);
+	}
+
+	/**
+	 * Stops the current spin right away and settles the round.
+	 *
+	 * @return true if a round was settled
+	 */
+	@Override
+	public boolean finishSpin() {
+		if (!isSpinning())
+			return false;
+		remainingSteps = 1;
+		return step();
+	}
+
+	/**
+	 * Advances the wheel by one step of the solver's delta and settles the round
+	 * if it stopped.
+	 *
+	 * @return true if a round was settled
+	 */
+	public boolean step() {
+		if (remainingSteps == 0 || --remainingSteps > 0)
+			return false;
+		rotation = stopRotation;
+		settle(spots.getSpot(rotation));
+		return true;
+	}
+
+	/**
+	 * Calculates what a winning bet pays back, the bet itself included. Every
+	 * table and {@link BetSpot} pays through this.
+	 *
+	 * @param spot the value of the spot that won
+	 * @param bet  the amount bet on it
+	 * @return the amount paid back
+	 * @throws ArithmeticException if the amount doesn't fit in a long
+	 */
+	public static long payout(int spot, long bet) {
+		long multiplier = spot + 1L;
+		if (bet != 0 && multiplier > Long.MAX_VALUE / Math.abs(bet))
+			throw new ArithmeticException("A bet of " + bet + " on " + spot + " pays more than a long holds");
+		return bet * multiplier;
+	}
+
+	/**
+	 * Pays out the bet on the landed spot, then clears all bets.
+	 *
+	 * @param spot the spot the wheel landed on
+	 * @return the amount paid back to the player
+	 * @throws ArithmeticException if the winnings don't fit in the balance, which
+	 *                             only happens when other tables sharing the
+	 *                             wallet filled it after the bet was placed. The
+	 *                             bets are left on the table and the round is not
+	 *                             counted.
+	 */
+	long settle(int spot) {
+		int bet = spot < bets.length ? bets[spot] : 0;
+		long winnings = payout(spot, bet);
+		if (!wallet.credit(player, winnings))
+			throw new ArithmeticException("Table " + id + " can't pay " + winnings + " without overflowing the balance");
+		if (betTotal != 0)
+			Arrays.fill(bets, 0);
+		betTotal = 0;
+		lastSpot = spot;
+		rounds++;
+		if (listener != null)
+			listener.settled(this, spot, winnings);
+		return winnings;
+	}
+
+	/**
+	 * @return the id of the table
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * @return the table the wheel lands through
+	 */
+	public SpotTable getSpotTable() {
+		return spots;
+	}
+
+	@Override
+	public WheelLayout getLayout() {
+		return spots.getLayout();
+	}
+
+	/**
+	 * Switches the wheel to another layout between rounds, like the 'w' key does
+	 * in the game. Every bet goes back to the player first.
+	 *
+	 * @param spots the table of the new layout
+	 * @return true if the layout was switched, false while the wheel is spinning
+	 *         or if a bet could not be taken back
+	 */
+	public boolean setSpotTable(SpotTable spots) {
+		if (isSpinning())
+			return false;
+		for (int spot = 0; spot < bets.length && betTotal != 0; spot++)
+			if (bets[spot] != 0 && !placeBet(spot, -bets[spot]))
+				return false;
+		this.spots = spots;
+		if (log != null)
+			log.layout(spots.getLayout());
+		return true;
+	}
+
+	/**
+	 * @return the wallet holding the player's balance
+	 */
+	public SharedWallet getWallet() {
+		return wallet;
+	}
+
+	/**
+	 * @return the id of the player in the wallet
+	 */
+	public int getPlayer() {
+		return player;
+	}
+
+	/**
+	 * @return the player's balance, at most {@link Integer#MAX_VALUE}
+	 */
+	@Override
+	public int getBalance() {
+		return (int) Math.min(Integer.MAX_VALUE, wallet.getBalance(player));
+	}
+
+	/**
+	 * Sets the player's balance, like the 'c' key does in the game. Other tables
+	 * sharing the wallet see the new balance too.
+	 *
+	 * @param balance the new balance, not negative
+	 */
+	@Override
+	public void setBalance(int balance) {
+		wallet.set(player, balance);
+		if (log != null)
+			log.balance(balance);
+	}
+
+	/**
+	 * @param spot the value of a spot
+	 * @return the amount bet on the spot
+	 */
+	@Override
+	public int getBet(int spot) {
+		return spot >= 0 && spot < bets.length ? bets[spot] : 0;
+	}
+
+	/**
+	 * @return the total amount currently bet
+	 */
+	@Override
+	public int getBetTotal() {
+		return betTotal;
+	}
+
+	/**
+	 * @return the number of rounds settled
+	 */
+	@Override
+	public long getRounds() {
+		return rounds;
+	}
+
+	/**
+	 * @return the spot the wheel last landed on, 0 before the first round
+	 */
+	@Override
+	public int getLastSpot() {
+		return lastSpot;
+	}
+
+	/**
+	 * @return true if the wheel is spinning
+	 */
+	@Override
+	public boolean isSpinning() {
+		return remainingSteps > 0;
+	}
+
+	/**
+	 * @return the rotation of the wheel before the current spin
+	 */
+	public float getRotation() {
+		return rotation;
+	}
+
+	/**
+	 * @return the rotation the current spin stops at
+	 */
+	public float getStopRotation() {
+		return stopRotation;
+	}
+
+	/**
+	 * @return the steps left until the current spin stops
+	 */
+	public int getRemainingSteps() {
+		return remainingSteps;
+	}
+
+	/**
+	 * @param log records every input for replays, or null
+	 */
+	public void setLog(SpinLog log) {
+		this.log = log;
+	}
+
+	/**
+	 * @param listener the listener notified when a round is settled
+	 */
+	public void setListener(Listener listener) {
+		this.listener = listener;
+	}
+
+}
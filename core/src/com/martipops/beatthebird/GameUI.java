@@ -1,70 +1,146 @@
 package com.martipops.beatthebird;
 
-import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Group;
 import com.badlogic.gdx.scenes.scene2d.Touchable;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.Pool;
 
 /**
  * Class GameUI:
  * Extends a Group of actors, representing the user interface for the game.
+ *
+ * Pop ups are pooled and animated in act using the frame time, so they fade
+ * at the same speed at any frame rate. At most {@link #MAX_POPUPS} are shown
+ * at once, and wins that arrive while a win pop up is still fresh are added to
+ * it instead of opening another one.
  */
-public class GameUI extends Group implements GameInterface {
+public class GameUI extends Group implements GameInterface, Disposable {
+
+    /**
+     * The most pop ups shown at once, the oldest one makes room for a new one
+     */
+    static final int MAX_POPUPS = 4;
+
+    /**
+     * The seconds a pop up takes to fade away
+     */
+    static final float POPUP_SECONDS = 100 / 60f;
+
+    /**
+     * The pixels a pop up rises per second
+     */
+    static final float POPUP_RISE = 60;
+
+    /**
+     * The seconds during which another win is added to a win pop up
+     */
+    static final float COALESCE_SECONDS = 0.75f;
+
+    /**
+     * The most wins listed in one pop up, after that only their sum is shown
+     */
+    static final int MAX_COALESCED = 4;
 
     BitmapFont font;
 
+    /**
+     * Pop ups that are not shown, reused instead of allocating new ones
+     */
+    private final Pool<PopUpText> popUps = new Pool<PopUpText>(MAX_POPUPS, MAX_POPUPS * 2) {
+        @Override
+        protected PopUpText newObject() {
+            return new PopUpText();
+        }
+    };
+
+    /**
+     * The win pop up that further wins are added to, or null
+     */
+    private PopUpText lastWin;
+
     /**
      * Class PopUpText:
-     * Creates a bit of text on screen that fades away and destroys itself.
+     * Creates a bit of text on screen that fades away and returns itself to the
+     * pool.
      * Used for displaying messages to the player.
      */
-    class PopUpText extends Actor {
-        String text;
-        int x, y;
-        float alpha;
+    class PopUpText extends Actor implements Pool.Poolable {
+        final CachedLabel label = new CachedLabel(font, Color.WHITE);
+        final StringBuilder text = new StringBuilder();
+        final int[] wins = new int[MAX_COALESCED];
+        int winCount, winTotal;
+        float age;
 
         /**
-         * Constructor for creating a PopUpText object.
-         * 
-         * @param text The text to display.
-         * @param x    The x-coordinate of the text.
-         * @param y    The y-coordinate of the text.
+         * Starts showing a pop up at the usual place.
          */
-        PopUpText(String text, int x, int y) {
-            this.text = text;
-            this.x = x;
-            this.y = y;
-            this.alpha = 1;
+        void start() {
+            age = 0;
+            setPosition(200, SCREEN_HEIGHT - 200);
         }
 
         /**
-         * Constructor for creating a PopUpText object.
-         * 
-         * @param text The text to display.
+         * Adds a win to the pop up and writes its text again.
+         *
+         * @param amount The amount won.
          */
-        PopUpText(String text) {
-            this(text, 200, SCREEN_HEIGHT - 200);
+        void addWin(int amount) {
+            if (winCount < MAX_COALESCED)
+                wins[winCount] = amount;
+            winCount++;
+            winTotal += amount;
+            text.setLength(0);
+            text.append("Won ");
+            if (winCount <= MAX_COALESCED) {
+                for (int i = 0; i < winCount; i++) {
+                    if (i > 0)
+                        text.append(" + ");
+                    text.append(wins[i]);
+                }
+                text.append(" Diamonds!");
+            } else {
+                text.append(winTotal).append(" Diamonds in ").append(winCount).append(" spins!");
+            }
+            label.setText(text);
+        }
+
+        /**
+         * Fades and raises the text by the time since the last frame, and returns
+         * the pop up to the pool once it is gone.
+         *
+         * @param delta The time since the last frame in seconds.
+         */
+        @Override
+        public void act(float delta) {
+            super.act(delta);
+            age += delta;
+            moveBy(0, POPUP_RISE * delta);
+            if (age >= POPUP_SECONDS)
+                hidePopUp(this);
         }
 
         /**
-         * Draws the text on screen.
-         * 
+         * Draws the text on screen. The glyphs were laid out when the text was set,
+         * only their position and alpha change.
+         *
          * @param batch       The batch to draw the text on.
          * @param parentAlpha The alpha value of the parent.
          */
         @Override
         public void draw(Batch batch, float parentAlpha) {
-            super.draw(batch, parentAlpha);
-            font.setColor(1f, 1f, 1f, alpha);
-            font.draw(batch, text, x, y);
-            alpha = alpha - 0.01f;
-            this.y++;
-            if (alpha < 0f) {
-                this.remove();
-                this.clear();
-            }
+            label.setPosition((int) getX(), (int) getY());
+            label.draw(batch, Math.max(0f, 1 - age / POPUP_SECONDS) * parentAlpha);
+        }
+
+        @Override
+        public void reset() {
+            winCount = 0;
+            winTotal = 0;
+            age = 0;
         }
 
     }
@@ -75,15 +151,14 @@ public class GameUI extends Group implements GameInterface {
     public GameUI() {
         super();
         this.setBounds(0, 0, SCREEN_WIDTH, SCREEN_HEIGHT);
-        font = new BitmapFont(Gdx.files.internal("bubblefont.fnt"));
+        font = GameMain.resources.acquire(GameAssets.BUBBLE_FONT, this);
         this.setTouchable(Touchable.disabled);
-        PopUpText p = new PopUpText("Welcome!");
-        this.addActor(p);
+        showPopUp("Welcome!");
     }
 
     /**
      * Draws the inventory on screen.
-     * 
+     *
      * @param batch       The batch to draw the inventory on.
      * @param parentAlpha The alpha value of the parent.
      */
@@ -93,14 +168,66 @@ public class GameUI extends Group implements GameInterface {
     }
 
     /**
-     * Adds an actor to the inventory.
-     * Overrides Group's addActor method to randomize the coordinates of a new
-     * CoinActor being added to the inventory.
+     * Shows a pop up with some text.
+     *
+     * @param displayText The text to show.
+     */
+    public void showPopUp(CharSequence displayText) {
+        PopUpText p = obtainPopUp();
+        p.label.setText(displayText);
+    }
+
+    /**
+     * Shows a pop up for a win, or adds the win to the last win pop up if it was
+     * shown less than {@link #COALESCE_SECONDS} ago, like "Won 30 + 50 Diamonds!".
      *
-     * @param actor The actor to add to the inventory.
+     * @param amount The amount won.
+     */
+    public void showWin(int amount) {
+        if (lastWin == null || lastWin.age > COALESCE_SECONDS) {
+            lastWin = obtainPopUp();
+        } else {
+            lastWin.start();
+        }
+        lastWin.addWin(amount);
+    }
+
+    /**
+     * @return The number of pop ups shown.
+     */
+    public int getPopUpCount() {
+        return getChildren().size;
+    }
+
+    /**
+     * Takes a pop up from the pool and shows it, hiding the oldest one if there
+     * are too many.
+     */
+    private PopUpText obtainPopUp() {
+        if (getChildren().size >= MAX_POPUPS)
+            hidePopUp((PopUpText) getChildren().first());
+        PopUpText p = popUps.obtain();
+        p.start();
+        addActor(p);
+        return p;
+    }
+
+    /**
+     * Removes a pop up and returns it to the pool.
      */
-    public void showPopUp(String displayText) {
-        addActor(new PopUpText(displayText));
+    private void hidePopUp(PopUpText p) {
+        if (p == lastWin)
+            lastWin = null;
+        removeActor(p);
+        popUps.free(p);
+    }
+
+    /**
+     * Releases the shared font.
+     */
+    @Override
+    public void dispose() {
+        GameMain.resources.release(font, this);
     }
 
 }
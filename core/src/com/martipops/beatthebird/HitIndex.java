@@ -0,0 +1,157 @@
+package com.martipops.beatthebird;
+
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Class HitIndex:
+ * Finds the actor under a point without walking the stage. The screen is split
+ * into a grid of {@link #CELL_SIZE} pixel cells, and every cell lists the
+ * top level actors whose bounds overlap it, top most first. A lookup only asks
+ * the few actors of one cell, so it takes the same time no matter how many
+ * coins are on the table.
+ *
+ * Each candidate still answers with its own hit method, so the result is the
+ * same as {@link com.badlogic.gdx.scenes.scene2d.Stage#hit(float, float, boolean)}
+ * for every point on screen, and circular actors like the wheel are only hit
+ * inside their circle. The bounds are taken when the index is built, so it
+ * has to be rebuilt when top level actors are added, removed or moved.
+ */
+public class HitIndex {
+
+	/**
+	 * The width and height of a cell in pixels
+	 */
+	static final int CELL_SIZE = 64;
+
+	/**
+	 * The actors indexed, bottom most first
+	 */
+	private final Array<Actor> actors = new Array<Actor>();
+	/**
+	 * The indices into actors overlapping each cell, top most first
+	 */
+	private int[][] cells;
+	private int columns, rows;
+	/**
+	 * The group whose children are indexed
+	 */
+	private final Group root;
+	private final int width, height;
+	/**
+	 * Reused for coordinate conversions
+	 */
+	private final Vector2 point = new Vector2();
+
+	/**
+	 * Constructs an index over the children of a group.
+	 *
+	 * @param root   the group, usually the stage's root
+	 * @param width  the width of the area covered
+	 * @param height the height of the area covered
+	 */
+	public HitIndex(Group root, int width, int height) {
+		this.root = root;
+		this.width = width;
+		this.height = height;
+		columns = (width + CELL_SIZE - 1) / CELL_SIZE;
+		rows = (height + CELL_SIZE - 1) / CELL_SIZE;
+		rebuild();
+	}
+
+	/**
+	 * Takes the bounds of the group's children again.
+	 */
+	public void rebuild() {
+		actors.clear();
+		actors.addAll(root.getChildren());
+		IntArray[] lists = new IntArray[columns * rows];
+		for (int i = 0; i < actors.size; i++) {
+			Actor actor = actors.get(i);
+			float[] bounds = stageBounds(actor);
+			if (bounds[2] <= bounds[0] || bounds[3] <= bounds[1])
+				continue;
+			int x1 = clamp((int) Math.floor(bounds[0] / CELL_SIZE), columns);
+			int y1 = clamp((int) Math.floor(bounds[1] / CELL_SIZE), rows);
+			int x2 = clamp((int) Math.floor(bounds[2] / CELL_SIZE), columns);
+			int y2 = clamp((int) Math.floor(bounds[3] / CELL_SIZE), rows);
+			for (int y = y1; y <= y2; y++) {
+				for (int x = x1; x <= x2; x++) {
+					IntArray list = lists[y * columns + x];
+					if (list == null)
+						list = lists[y * columns + x] = new IntArray();
+					list.insert(0, i);
+				}
+			}
+		}
+		cells = new int[lists.length][];
+		for (int i = 0; i < lists.length; i++)
+			cells[i] = lists[i] == null ? new int[0] : lists[i].toArray();
+	}
+
+	/**
+	 * Finds the top most actor at a point.
+	 *
+	 * @param x         the x coordinate on the stage
+	 * @param y         the y coordinate on the stage
+	 * @param touchable true to ignore actors that can't be touched
+	 * @return the actor hit, or null
+	 */
+	public Actor hit(float x, float y, boolean touchable) {
+		if (x < 0 || y < 0 || x >= width || y >= height)
+			return null;
+		int[] cell = cells[(int) (y / CELL_SIZE) * columns + (int) (x / CELL_SIZE)];
+		for (int i = 0; i < cell.length; i++) {
+			Actor actor = actors.get(cell[i]);
+			actor.parentToLocalCoordinates(point.set(x, y));
+			Actor hit = actor.hit(point.x, point.y, touchable);
+			if (hit != null)
+				return hit;
+		}
+		return null;
+	}
+
+	/**
+	 * @param x the x coordinate on the stage
+	 * @param y the y coordinate on the stage
+	 * @return the number of actors that may be under the point
+	 */
+	public int getCandidates(float x, float y) {
+		if (x < 0 || y < 0 || x >= width || y >= height)
+			return 0;
+		return cells[(int) (y / CELL_SIZE) * columns + (int) (x / CELL_SIZE)].length;
+	}
+
+	/**
+	 * Finds the area an actor covers in its parent. Circles, like the wheel, cover
+	 * the same area however they are rotated.
+	 *
+	 * @return the left, bottom, right and top edges
+	 */
+	private float[] stageBounds(Actor actor) {
+		if (actor instanceof CircleActor) {
+			float radius = Math.min(actor.getOriginX(), actor.getOriginY())
+					* Math.max(Math.abs(actor.getScaleX()), Math.abs(actor.getScaleY()));
+			float x = actor.getX() + actor.getOriginX(), y = actor.getY() + actor.getOriginY();
+			return new float[] { x - radius, y - radius, x + radius, y + radius };
+		}
+		float[] bounds = { Float.MAX_VALUE, Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE };
+		for (int corner = 0; corner < 4; corner++) {
+			point.set(corner % 2 == 0 ? 0 : actor.getWidth(), corner < 2 ? 0 : actor.getHeight());
+			actor.localToParentCoordinates(point);
+			bounds[0] = Math.min(bounds[0], point.x);
+			bounds[1] = Math.min(bounds[1], point.y);
+			bounds[2] = Math.max(bounds[2], point.x);
+			bounds[3] = Math.max(bounds[3], point.y);
+		}
+		return bounds;
+	}
+
+	private static int clamp(int cell, int cells) {
+		return Math.max(0, Math.min(cells - 1, cell));
+	}
+
+}
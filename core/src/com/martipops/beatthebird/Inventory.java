@@ -1,32 +1,81 @@
 package com.martipops.beatthebird;
 
+import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.scenes.scene2d.Actor;
 import com.badlogic.gdx.scenes.scene2d.Group;
+import com.badlogic.gdx.scenes.scene2d.Touchable;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.Pool;
 
 /**
  * Inventory class extends Group, representing the player's inventory
  * for collecting coins in the game.
+ *
+ * The total is kept as a plain number. The coins on screen only show it, one
+ * coin per {@link #COIN_VALUE} diamonds up to {@link #MAX_VISIBLE_COINS}, and
+ * are reused through a pool, so moving any amount costs the same. They only
+ * catch up with the total when the inventory next acts, so any number of
+ * changes in one frame update them once.
  */
-public class Inventory extends Group {
+public class Inventory extends Group implements Disposable {
+
+	/**
+	 * The value of one coin
+	 */
+	public static final int COIN_VALUE = 10;
+
+	/**
+	 * The most coins drawn in one inventory
+	 */
+	public static final int MAX_VISIBLE_COINS = 100;
+
+	/**
+	 * Coins that are not in any inventory, reused instead of allocating new ones
+	 */
+	static final Pool<CoinActor> coinPool = new Pool<CoinActor>() {
+		@Override
+		protected CoinActor newObject() {
+			return new CoinActor(GameMain.coinTenRegion, COIN_VALUE);
+		}
+	};
 
 	/**
 	 * The font for displaying the total value of coins in the inventory.
 	 */
 	private BitmapFont font;
 
+	/**
+	 * The label showing the name and total, only laid out again when they change.
+	 */
+	private final CachedLabel label;
+
+	/**
+	 * The name followed by ": ", built when the name is set.
+	 */
+	private String labelPrefix = "null: ";
+
 	/**
 	 * The total value of coins currently in the inventory.
 	 */
 	int total = 0;
 
 	/**
-	 * The texture region for the inventory's coins.
+	 * The store the total is saved to, or null if it is not saved.
 	 */
-	TextureRegion coinRegion = GameMain.coinTenRegion;
+	private WalletStore wallet;
+
+	/**
+	 * The id the total is saved under in the wallet.
+	 */
+	private int walletId;
+
+	/**
+	 * Whether the total changed since the coins on screen were last updated.
+	 */
+	private boolean coinsChanged;
 
 	/**
 	 * Constructor for creating an inventory with a specified hitbox.
@@ -39,8 +88,8 @@ public class Inventory extends Group {
 	public Inventory(float x1, float y1, float x2, float y2) {
 		// Set the inventory's position and size based on the hitbox coordinates
 		this.setBounds(x1, y1, x2 - x1, y2 - y1);
-		font = new BitmapFont();
-		font.setColor(Color.WHITE);
+		font = GameMain.resources.acquire(GameAssets.DEFAULT_FONT, this);
+		label = new CachedLabel(font, Color.WHITE);
 	}
 
 	/**
@@ -79,6 +128,25 @@ public class Inventory extends Group {
 		return false;
 	}
 
+	/**
+	 * Overrides Group's hit method to only test the inventory's bounds. Coins are
+	 * never hit, so there's no need to ask every one of them.
+	 *
+	 * @param x         The x coordinate to check for a hit.
+	 * @param y         The y coordinate to check for a hit.
+	 * @param touchable Whether the hit detection should take into account
+	 *                  touchability.
+	 * @return This inventory if the point is within its bounds, null otherwise.
+	 */
+	@Override
+	public Actor hit(float x, float y, boolean touchable) {
+		if (touchable && getTouchable() != Touchable.enabled)
+			return null;
+		if (!isVisible())
+			return null;
+		return x >= 0 && x < getWidth() && y >= 0 && y < getHeight() ? this : null;
+	}
+
 	/**
 	 * Returns the CoinActor at the specified index in the inventory's children.
 	 *
@@ -91,26 +159,30 @@ public class Inventory extends Group {
 	}
 
 	/**
-	 * Transfers coins from this inventory to a destination inventory.
+	 * Transfers coins from this inventory to a destination inventory. A negative
+	 * amount moves coins from this inventory to the destination, a positive
+	 * amount moves them back. Only as many coins as the source has, and as the
+	 * target's total can hold without overflowing, are moved.
 	 *
 	 * @param destination The inventory to transfer coins to.
 	 * @param amount      The amount of coins to transfer.
+	 * @return true if the whole amount was transferred.
 	 */
 	public boolean transferCoin(Inventory destination, int amount) {
-		int iterations = Math.abs(amount);
-		for (int i = 0; i < iterations; i++) {
-			CoinActor coin;
-			Inventory source = amount < 0 ? this : destination;
-			Inventory target = source == this ? destination : this;
-			if (source.total < 10)
-				return false;
-			coin = source.getCoin(0);
-			source.total -= coin.value;
-			target.total += coin.value;
-			source.removeActor(coin);
-			target.addActor(coin);
+		Inventory source = amount < 0 ? this : destination;
+		Inventory target = source == this ? destination : this;
+		long wanted = Math.abs((long) amount);
+		int coins = (int) Math.max(0,
+				Math.min(wanted, Math.min(source.total, Integer.MAX_VALUE - target.total) / COIN_VALUE));
+		source.total -= coins * COIN_VALUE;
+		target.total += coins * COIN_VALUE;
+		if (coins > 0) {
+			source.coinsChanged = true;
+			target.coinsChanged = true;
+			source.saveTotal();
+			target.saveTotal();
 		}
-		return true;
+		return coins == wanted;
 	}
 
 	/**
@@ -119,51 +191,133 @@ public class Inventory extends Group {
 	 * @param total The total value to set the inventory to.
 	 */
 	public void setTotal(int total) {
-		this.total = 0;
-		this.clearChildren();
-		addTotal(total);
+		this.total = total;
+		coinsChanged = true;
+		saveTotal();
 	}
 
 	/**
-	 * Adds a specified amount to the total value of coins in the inventory.
-	 * Adds new CoinActors to the inventory to represent any additional coins added.
+	 * Adds a specified amount to the total value of coins in the inventory, if
+	 * the total can hold it.
 	 *
 	 * @param amt The amount to add to the total value of coins in the inventory.
+	 * @return true if it was added, false if the total would overflow and was left
+	 *         alone.
 	 */
-	public void addTotal(int amt) {
+	public boolean addTotal(int amt) {
+		if (amt > 0 ? total > Integer.MAX_VALUE - amt : total < Integer.MIN_VALUE - amt)
+			return false;
 		this.total += amt;
-		int numCoins = amt / 10;
-		addCoins(numCoins);
+		coinsChanged = true;
+		saveTotal();
+		return true;
 	}
 
 	/**
-	 * Adds a specified number of CoinActors to the inventory.
+	 * @return The total value of coins in the inventory.
+	 */
+	public int getTotal() {
+		return total;
+	}
+
+	/**
+	 * Saves the total to a wallet from now on, every time it changes.
+	 *
+	 * @param wallet The store to save the total to, or null to stop saving it.
+	 * @param id     The id to save the total under.
+	 */
+	public void setWallet(WalletStore wallet, int id) {
+		this.wallet = wallet;
+		this.walletId = id;
+	}
+
+	/**
+	 * Queues the total to be written to the wallet, if there is one. The wallet
+	 * writes it on its own thread. If that thread failed, the error is logged once
+	 * and the total is no longer saved to the wallet; the game carries on.
+	 */
+	private void saveTotal() {
+		if (wallet != null && !wallet.set(walletId, total)) {
+			Gdx.app.error("Inventory", "Could not save the total to the wallet", wallet.getFailure());
+			wallet = null;
+		}
+	}
+
+	/**
+	 * Brings the coins on screen up to date before the inventory acts.
 	 *
-	 * @param numCoins The number of CoinActors to add to the inventory.
+	 * @param delta The time elapsed since the last frame.
+	 */
+	@Override
+	public void act(float delta) {
+		syncCoins();
+		super.act(delta);
+	}
+
+	/**
+	 * Updates the coins on screen if the total changed since they last were.
 	 */
-	private void addCoins(int numCoins) {
-		for (int i = 0; i < numCoins; i++) {
-			CoinActor coin = new CoinActor(GameMain.coinTenRegion, 10, this);
-			this.addActor(coin);
+	public void syncCoins() {
+		if (coinsChanged) {
+			coinsChanged = false;
+			updateCoins();
 		}
 	}
 
+	/**
+	 * Adds or removes pooled CoinActors until the coins on screen match the total.
+	 * Never touches more than {@link #MAX_VISIBLE_COINS} coins.
+	 */
+	void updateCoins() {
+		int visible = Math.max(0, Math.min(total / COIN_VALUE, MAX_VISIBLE_COINS));
+		while (getChildren().size > visible) {
+			Actor coin = getChildren().peek();
+			super.removeActor(coin);
+			if (coin instanceof CoinActor)
+				coinPool.free((CoinActor) coin);
+		}
+		while (getChildren().size < visible)
+			this.addActor(coinPool.obtain());
+	}
+
 	/**
 	 * Spawns a new CoinActor in the inventory with the coin texture and a value of
 	 * 10.
 	 */
 	public void spawnCoin() {
-		this.addActor(new CoinActor(coinRegion, 10));
+		this.addActor(coinPool.obtain());
+	}
+
+	/**
+	 * Sets the name shown in front of the total.
+	 *
+	 * @param name The name of the inventory.
+	 */
+	@Override
+	public void setName(String name) {
+		super.setName(name);
+		labelPrefix = name + ": ";
 	}
 
 	/**
 	 * Overrides the parent draw method that is called every frame to draw a text
-	 * object to keep track of the total
+	 * object to keep track of the total. The text is only laid out again when the
+	 * total changes.
 	 */
 	@Override
 	public void draw(Batch batch, float parentAlpha) {
 		super.draw(batch, parentAlpha);
-		font.draw(batch, this.getName() + ": " + total, this.getX(), this.getY());
+		label.setText(labelPrefix, total);
+		label.setPosition(this.getX(), this.getY());
+		label.draw(batch, 1);
+	}
+
+	/**
+	 * Releases the shared font.
+	 */
+	@Override
+	public void dispose() {
+		GameMain.resources.release(font, this);
 	}
 
-}
\ No newline at end of file
+}
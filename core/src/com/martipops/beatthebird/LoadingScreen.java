@@ -0,0 +1,43 @@
+package com.martipops.beatthebird;
+
+import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.utils.Disposable;
+
+/**
+ * Class LoadingScreen:
+ * A progress bar drawn while {@link GameAssets} loads. It only uses shapes, so
+ * it can be shown on the very first frame before any asset is ready.
+ */
+public class LoadingScreen implements Disposable, GameInterface {
+
+	/**
+	 * The size of the bar
+	 */
+	private static final float BAR_WIDTH = SCREEN_WIDTH / 2f, BAR_HEIGHT = 24;
+
+	/**
+	 * Draws the bar
+	 */
+	private final ShapeRenderer shapes = GameMain.resources.track("loading screen shapes", new ShapeRenderer(), this);
+
+	/**
+	 * Draws the progress bar in the middle of the screen.
+	 *
+	 * @param progress how much has been loaded, from 0 to 1
+	 */
+	public void draw(float progress) {
+		float x = (SCREEN_WIDTH - BAR_WIDTH) / 2, y = (SCREEN_HEIGHT - BAR_HEIGHT) / 2;
+		shapes.begin(ShapeRenderer.ShapeType.Filled);
+		shapes.setColor(0.25f, 0.25f, 0.25f, 1);
+		shapes.rect(x, y, BAR_WIDTH, BAR_HEIGHT);
+		shapes.setColor(1, 0.8f, 0.2f, 1);
+		shapes.rect(x, y, BAR_WIDTH * progress, BAR_HEIGHT);
+		shapes.end();
+	}
+
+	@Override
+	public void dispose() {
+		GameMain.resources.release(shapes, this);
+	}
+
+}
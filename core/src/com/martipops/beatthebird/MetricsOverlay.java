@@ -0,0 +1,80 @@
+package com.martipops.beatthebird;
+
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.scenes.scene2d.Touchable;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Class MetricsOverlay:
+ * Draws the last frame of {@link FrameMetrics} in the top right corner of the
+ * screen. Hidden until toggled.
+ */
+public class MetricsOverlay extends Actor implements GameInterface {
+
+	/**
+	 * The metrics to show
+	 */
+	private final FrameMetrics metrics;
+	/**
+	 * The font for the text
+	 */
+	private final BitmapFont font;
+	/**
+	 * Reused for the text so drawing does not build new strings
+	 */
+	private final StringBuilder text = new StringBuilder();
+
+	/**
+	 * Constructs a hidden overlay.
+	 *
+	 * @param metrics the metrics to show
+	 */
+	public MetricsOverlay(FrameMetrics metrics) {
+		this.metrics = metrics;
+		font = GameMain.resources.acquire(GameAssets.DEFAULT_FONT, this);
+		setTouchable(Touchable.disabled);
+		setVisible(false);
+	}
+
+	/**
+	 * Shows the overlay if it is hidden, hides it otherwise.
+	 */
+	public void toggle() {
+		setVisible(!isVisible());
+	}
+
+	/**
+	 * Draws the metrics of the last frame.
+	 */
+	@Override
+	public void draw(Batch batch, float parentAlpha) {
+		text.setLength(0);
+		text.append("act ").append(metrics.getActMillis()).append(" ms\n");
+		text.append("draw ").append(metrics.getDrawMillis()).append(" ms\n");
+		text.append("render calls ").append(metrics.getRenderCalls()).append('\n');
+		text.append("texture binds ").append(metrics.getTextureBindings()).append('\n');
+		text.append("alloc ").append(metrics.getAllocatedBytes()).append(" B/frame\n");
+		text.append("gc (1 s) ").append(metrics.getGcCount(60)).append(" / ").append(metrics.getGcMillis(60))
+				.append(" ms\n");
+		text.append("first frame ").append(metrics.getTimeToFirstFrame()).append(" / game ")
+				.append(metrics.getTimeToGameFrame()).append(" ms\n");
+		Array<Inventory> inventories = metrics.getInventories();
+		for (int i = 0; i < inventories.size; i++) {
+			Inventory inv = inventories.get(i);
+			text.append(inv.getName()).append(" actors ").append(inv.getChildren().size).append('\n');
+		}
+		font.setColor(Color.YELLOW); // the font is shared
+		font.draw(batch, text, SCREEN_WIDTH - 220, SCREEN_HEIGHT - 10);
+	}
+
+	/**
+	 * Releases the shared font.
+	 */
+	public void dispose() {
+		GameMain.resources.release(font, this);
+	}
+
+}
@@ -0,0 +1,176 @@
+package com.martipops.beatthebird;
+
+import java.util.Arrays;
+
+/**
+ * Class OddsAnalyzer:
+ * Computes the exact odds of every spot and the return to player of every bet
+ * spot from a {@link WheelLayout}, without spinning.
+ *
+ * Every spin adds the distance of a random speed to the wheel's angle, so over
+ * many spins the angle a spin starts at spreads evenly around the wheel, and
+ * the chance of landing on a spot is the share of the circle it covers. That
+ * share is found by integrating {@link WheelLayout#computeSpot(double)} between
+ * the sector edges. How quickly a session gets there is shown by enumerating
+ * every speed {@link WheelActor#spin()} can pick, through a {@link SpinSolver},
+ * for the first spins from a resting wheel. Running this class also checks the
+ * odds against a {@link WheelSimulator} run.
+ */
+public class OddsAnalyzer {
+
+	/**
+	 * Looks up where each spin stops
+	 */
+	private final SpinSolver solver;
+
+	/**
+	 * The table the spins land through
+	 */
+	private final SpotTable spots;
+
+	/**
+	 * Constructs an analyzer of the default layout for the game's step.
+	 */
+	public OddsAnalyzer() {
+		this(SpinSolver.DEFAULT, SpotTable.DEFAULT);
+	}
+
+	/**
+	 * Constructs an analyzer.
+	 *
+	 * @param solver looks up where each spin stops
+	 * @param spots  the table the spins land through
+	 */
+	public OddsAnalyzer(SpinSolver solver, SpotTable spots) {
+		this.solver = solver;
+		this.spots = spots;
+	}
+
+	/**
+	 * Integrates the angle to spot mapping over the whole wheel. The spot only
+	 * changes at the edge of a sector and where its numbered part ends, so it is
+	 * constant between those angles and each piece is weighed by its length.
+	 *
+	 * @param layout the layout of the wheel
+	 * @return the long run chance of landing on each spot, indexed by spot value
+	 */
+	public static double[] getLandingProbabilities(WheelLayout layout) {
+		double sectorAngle = layout.getSectorAngle();
+		int sectors = (int) Math.ceil(360.0 / sectorAngle);
+		double[] edges = new double[sectors * 2 + 2];
+		int n = 0;
+		edges[n++] = 0;
+		edges[n++] = 360;
+		for (int k = 0; k < sectors; k++) {
+			edges[n++] = Math.min(360, k * sectorAngle);
+			edges[n++] = Math.min(360, (k + layout.getThreshold()) * sectorAngle);
+		}
+		Arrays.sort(edges);
+		double[] probabilities = new double[WheelLayout.MAX_SPOT + 1];
+		for (int i = 1; i < edges.length; i++) {
+			double length = edges[i] - edges[i - 1];
+			if (length > 0)
+				probabilities[layout.computeSpot((edges[i - 1] + edges[i]) / 2)] += length / 360;
+		}
+		return probabilities;
+	}
+
+	/**
+	 * Enumerates every sequence of speeds for a number of spins from a resting
+	 * wheel, each speed as likely as {@link TableRandom#nextSpinSpeed()} makes
+	 * it. The angles are the exact floats the wheel stops at. There are 501 to
+	 * the power of spins sequences, so this is only practical for one or two.
+	 *
+	 * @param startRotation the rotation the wheel rests at
+	 * @param spins         the spin to get the odds of, 1 for the first
+	 * @return the chance of the last spin landing on each spot, indexed by spot
+	 *         value
+	 */
+	public double[] getSpinProbabilities(float startRotation, int spins) {
+		if (spins < 1)
+			throw new IllegalArgumentException("spins must be at least 1");
+		long[] counts = new long[WheelLayout.MAX_SPOT + 1];
+		enumerate(startRotation, spins, counts);
+		long total = 0;
+		for (long count : counts)
+			total += count;
+		double[] probabilities = new double[counts.length];
+		for (int i = 0; i < counts.length; i++)
+			probabilities[i] = (double) counts[i] / total;
+		return probabilities;
+	}
+
+	/**
+	 * Counts the spots the last of some spins lands on for every speed sequence.
+	 */
+	private void enumerate(float rotation, int spins, long[] counts) {
+		for (int speed = WheelPhysics.MIN_SPIN_SPEED; speed <= WheelPhysics.MAX_SPIN_SPEED; speed++) {
+			float stop = solver.getStopRotation(rotation, speed);
+			if (spins == 1)
+				counts[spots.getSpot(stop)]++;
+			else
+				enumerate(stop, spins - 1, counts);
+		}
+	}
+
+	/**
+	 * @param spot          the value of a bet spot
+	 * @param probabilities the chance of landing on each spot
+	 * @return the share of a bet on the spot that is paid back on average
+	 */
+	public static double getReturnToPlayer(int spot, double[] probabilities) {
+		return spot < probabilities.length ? probabilities[spot] * GameTable.payout(spot, 1) : 0;
+	}
+
+	/**
+	 * @return the total variation distance between two sets of odds, the most any
+	 *         chance differs by
+	 */
+	public static double distance(double[] a, double[] b) {
+		double sum = 0;
+		for (int i = 0; i < a.length; i++)
+			sum += Math.abs(a[i] - b[i]);
+		return sum / 2;
+	}
+
+	/**
+	 * Prints the odds and returns of every bet spot, and checks them against a
+	 * Monte Carlo run. Exits with an error if a spot is more than five standard
+	 * errors off.
+	 *
+	 * @param args optionally the number of Monte Carlo spins and the seed
+	 */
+	public static void main(String[] args) {
+		long spins = args.length > 0 ? Long.parseLong(args[0]) : 10000000L;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+		long start = System.nanoTime();
+		OddsAnalyzer analyzer = new OddsAnalyzer();
+		WheelLayout layout = analyzer.spots.getLayout();
+		double[] exact = getLandingProbabilities(layout);
+		double[] first = analyzer.getSpinProbabilities(0, 1);
+		double[] second = analyzer.getSpinProbabilities(0, 2);
+		double exactMillis = (System.nanoTime() - start) / 1e6;
+		start = System.nanoTime();
+		WheelSimulator.Result result = new WheelSimulator().run(spins, seed);
+		double simulationMillis = (System.nanoTime() - start) / 1e6;
+
+		System.out.println("Spot  Odds      RTP      Edge     1st spin  2nd spin  Simulated  z");
+		double worst = 0;
+		for (int i = 0; i < layout.getBetCount(); i++) {
+			int spot = layout.getBetValue(i);
+			double p = exact[spot];
+			double z = (result.getProbability(spot) - p) / Math.sqrt(p * (1 - p) / result.getSpins());
+			worst = Math.max(worst, Math.abs(z));
+			System.out.printf("%4d  %.6f  %.5f  %+.5f  %.6f  %.6f  %.6f   %+.2f%n", spot, p,
+					getReturnToPlayer(spot, exact), 1 - getReturnToPlayer(spot, exact), first[spot], second[spot],
+					result.getProbability(spot), z);
+		}
+		System.out.printf("Distance from the long run odds: 1st spin %.5f, 2nd spin %.5f%n", distance(first, exact),
+				distance(second, exact));
+		System.out.printf("Exact odds in %.1f ms, %d simulated spins in %.1f ms, worst z %.2f%n", exactMillis,
+				result.getSpins(), simulationMillis, worst);
+		if (worst > 5)
+			System.exit(1);
+	}
+
+}
@@ -0,0 +1,350 @@
+package com.martipops.beatthebird;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Class PayoutSimulator:
+ * Validates payouts by simulating rounds with a unit bet on every combination
+ * of bet spots at once, until the return of every combination is known to a
+ * target precision.
+ *
+ * Rounds are run in chunks on a {@link ForkJoinPool}. A chunk is split in half
+ * until the pieces are small enough, and each piece gets its own
+ * {@link TableRandom} split off its parent's, so a seed gives the same result
+ * on any number of threads. A piece only counts how often each spot is landed
+ * on, in a long array nobody else touches. That is all a round changes: the
+ * return of any combination in a round only depends on the spot, so the mean
+ * and variance of every combination follow from the merged counts. The variance
+ * is only right for independent rounds, so every round starts the wheel at its
+ * own random angle instead of where the last one stopped. That is the evenly
+ * spread start angle {@link OddsAnalyzer} finds a long session settles into. After each
+ * chunk the running means and confidence intervals are reported, and the run
+ * stops once every interval is narrow enough. Chunks start small and double, so
+ * a loose precision stops early.
+ *
+ * Payouts follow {@link BetLogic#calculateWinnings(int)}, only the bet on the
+ * landed spot pays, by {@link GameTable#payout(int, long)}.
+ */
+public class PayoutSimulator {
+
+	/**
+	 * The most rounds one task runs without splitting
+	 */
+	static final long LEAF_ROUNDS = 1 << 20;
+
+	/**
+	 * The most rounds run between reports. The first chunk is one leaf per
+	 * thread, and every chunk after that is twice as long up to this.
+	 */
+	static final long CHUNK_ROUNDS = 1 << 28;
+
+	/**
+	 * The z value of a 99% confidence interval
+	 */
+	static final double Z_99 = 2.5758;
+
+	/**
+	 * The most bet spots a simulated layout can have. Combinations are bit masks
+	 * in an int, and every one of the 2 to the power of this many is checked
+	 * after each chunk
+	 */
+	static final int MAX_BETS = 16;
+
+	/**
+	 * Receives the running results after every chunk.
+	 */
+	public interface Listener {
+		/**
+		 * @param tally   the rounds so far
+		 * @param seconds the time since the run started
+		 */
+		void chunk(Tally tally, double seconds);
+	}
+
+	/**
+	 * Class Tally:
+	 * The number of rounds that landed on each spot, and the statistics of every
+	 * bet spot combination derived from them. Combinations are bit masks over the
+	 * bet spots of the layout.
+	 */
+	public static class Tally {
+		/**
+		 * The values of the bet spots
+		 */
+		final int[] betValues;
+		/**
+		 * The number of landings indexed by spot value
+		 */
+		final long[] counts = new long[WheelLayout.MAX_SPOT + 1];
+		/**
+		 * The number of rounds
+		 */
+		long rounds;
+
+		/**
+		 * @param betValues the values of the bet spots
+		 */
+		Tally(int[] betValues) {
+			this.betValues = betValues;
+		}
+
+		/**
+		 * Adds the counts of another tally to this one.
+		 *
+		 * @param other the tally to add
+		 */
+		void merge(Tally other) {
+			for (int i = 0; i < counts.length; i++)
+				counts[i] += other.counts[i];
+			rounds += other.rounds;
+		}
+
+		/**
+		 * @return the number of rounds
+		 */
+		public long getRounds() {
+			return rounds;
+		}
+
+		/**
+		 * @param combination a bit mask over the bet spots
+		 * @return the average share of the wagered amount paid back in a round
+		 */
+		public double getMean(int combination) {
+			if (rounds == 0)
+				return 0;
+			double sum = 0;
+			for (int i = 0; i < betValues.length; i++)
+				if ((combination & 1 << i) != 0)
+					sum += counts[betValues[i]] * returnOf(combination, betValues[i]);
+			return sum / rounds;
+		}
+
+		/**
+		 * @param combination a bit mask over the bet spots
+		 * @return the sample variance of the share paid back in a round
+		 */
+		public double getVariance(int combination) {
+			if (rounds < 2)
+				return 0;
+			double squares = 0;
+			for (int i = 0; i < betValues.length; i++) {
+				if ((combination & 1 << i) != 0) {
+					double r = returnOf(combination, betValues[i]);
+					squares += counts[betValues[i]] * r * r;
+				}
+			}
+			double mean = getMean(combination);
+			return Math.max(0, (squares - rounds * mean * mean) / (rounds - 1));
+		}
+
+		/**
+		 * @param combination a bit mask over the bet spots
+		 * @return the half width of the 99% confidence interval of the mean
+		 */
+		public double getHalfWidth(int combination) {
+			return rounds == 0 ? Double.POSITIVE_INFINITY : Z_99 * Math.sqrt(getVariance(combination) / rounds);
+		}
+
+		/**
+		 * @return the widest half width of all combinations
+		 */
+		public double getWorstHalfWidth() {
+			double worst = 0;
+			for (int c = 1; c < 1 << betValues.length; c++)
+				worst = Math.max(worst, getHalfWidth(c));
+			return worst;
+		}
+
+		/**
+		 * @param combination a bit mask over the bet spots
+		 * @return the spots of the combination, like "1+5+20"
+		 */
+		public String describe(int combination) {
+			StringBuilder sb = new StringBuilder();
+			for (int i = 0; i < betValues.length; i++) {
+				if ((combination & 1 << i) != 0) {
+					if (sb.length() > 0)
+						sb.append('+');
+					sb.append(betValues[i]);
+				}
+			}
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * Class Batch:
+	 * Runs a number of rounds, splitting them across the pool.
+	 */
+	private class Batch extends RecursiveTask<Tally> {
+		private static final long serialVersionUID = 1L;
+
+		private final long rounds;
+		private final TableRandom random;
+
+		Batch(long rounds, TableRandom random) {
+			this.rounds = rounds;
+			this.random = random;
+		}
+
+		@Override
+		protected Tally compute() {
+			if (rounds <= LEAF_ROUNDS)
+				return spin(rounds, random);
+			Batch left = new Batch(rounds / 2, random.split());
+			Batch right = new Batch(rounds - rounds / 2, random.split());
+			left.fork();
+			Tally tally = right.compute();
+			tally.merge(left.join());
+			return tally;
+		}
+	}
+
+	/**
+	 * Looks up where each spin stops
+	 */
+	private final SpinSolver solver;
+
+	/**
+	 * The table the spins land through
+	 */
+	private final SpotTable spots;
+
+	/**
+	 * The values of the bet spots of the table's layout
+	 */
+	private final int[] betValues;
+
+	/**
+	 * Runs the batches
+	 */
+	private final ForkJoinPool pool;
+
+	/**
+	 * Constructs a simulator of the default layout that steps at 60 FPS on every
+	 * available core.
+	 */
+	public PayoutSimulator() {
+		this(SpinSolver.DEFAULT, SpotTable.DEFAULT, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructs a simulator.
+	 *
+	 * @param solver  looks up where each spin stops
+	 * @param spots   the table the spins land through
+	 * @param threads the number of threads to run rounds on
+	 * @throws IllegalArgumentException if the layout has more than
+	 *                                  {@link #MAX_BETS} bet spots
+	 */
+	public PayoutSimulator(SpinSolver solver, SpotTable spots, int threads) {
+		WheelLayout layout = spots.getLayout();
+		if (layout.getBetCount() > MAX_BETS)
+			throw new IllegalArgumentException(
+					"Can only simulate layouts with at most " + MAX_BETS + " bet spots, not " + layout.getBetCount());
+		this.solver = solver;
+		this.spots = spots;
+		this.pool = new ForkJoinPool(Math.max(1, threads));
+		betValues = new int[layout.getBetCount()];
+		for (int i = 0; i < betValues.length; i++)
+			betValues[i] = layout.getBetValue(i);
+	}
+
+	/**
+	 * Runs chunks of rounds until every combination's 99% confidence interval is
+	 * at most the precision wide on each side, or the rounds run out.
+	 *
+	 * @param maxRounds the most rounds to run
+	 * @param precision the half width to stop at, 0 to run every round
+	 * @param seed      the seed for the speeds
+	 * @param listener  receives the running results after each chunk, or null
+	 * @return the rounds run
+	 */
+	public Tally run(long maxRounds, double precision, long seed, Listener listener) {
+		TableRandom random = new TableRandom(seed);
+		Tally total = new Tally(betValues);
+		long start = System.nanoTime();
+		long chunk = LEAF_ROUNDS * pool.getParallelism();
+		while (total.rounds < maxRounds) {
+			long rounds = Math.min(chunk, maxRounds - total.rounds);
+			chunk = Math.min(chunk * 2, CHUNK_ROUNDS);
+			total.merge(pool.invoke(new Batch(rounds, random.split())));
+			if (listener != null)
+				listener.chunk(total, (System.nanoTime() - start) / 1e9);
+			if (total.getWorstHalfWidth() <= precision)
+				break;
+		}
+		return total;
+	}
+
+	/**
+	 * Stops the pool's threads.
+	 */
+	public void shutdown() {
+		pool.shutdown();
+	}
+
+	/**
+	 * Runs rounds on the calling thread. Each round starts the wheel at a new
+	 * random angle, so no round depends on the one before it.
+	 *
+	 * @param rounds the number of rounds
+	 * @param random the generator owned by this task
+	 * @return the landing counts of these rounds
+	 */
+	private Tally spin(long rounds, TableRandom random) {
+		Tally tally = new Tally(betValues);
+		long[] counts = tally.counts;
+		for (long i = 0; i < rounds; i++) {
+			float rotation = solver.getStopRotation(random.nextFloat() * 360f, random.nextSpinSpeed());
+			counts[spots.getSpot(rotation)]++;
+		}
+		tally.rounds = rounds;
+		return tally;
+	}
+
+	/**
+	 * @param combination a bit mask over the bet spots
+	 * @param spot        the spot landed on
+	 * @return the share of a unit bet on every spot of the combination paid back
+	 */
+	static double returnOf(int combination, int spot) {
+		return (double) GameTable.payout(spot, 1) / Integer.bitCount(combination);
+	}
+
+	/**
+	 * Runs the simulator from the command line, printing the running worst
+	 * interval after every chunk and every combination at the end next to the
+	 * exact return from {@link OddsAnalyzer}.
+	 *
+	 * @param args optionally the precision, the most rounds and the seed
+	 */
+	public static void main(String[] args) {
+		double precision = args.length > 0 ? Double.parseDouble(args[0]) : 0.001;
+		long maxRounds = args.length > 1 ? Long.parseLong(args[1]) : 10000000000L;
+		long seed = args.length > 2 ? Long.parseLong(args[2]) : System.nanoTime();
+		PayoutSimulator simulator = new PayoutSimulator();
+		Tally tally = simulator.run(maxRounds, precision, seed, new Listener() {
+			@Override
+			public void chunk(Tally tally, double seconds) {
+				System.out.printf("%,15d rounds  %6.1f s  %,13.0f rounds/s  worst +-%.5f%n", tally.getRounds(),
+						seconds, tally.getRounds() / seconds, tally.getWorstHalfWidth());
+			}
+		});
+		simulator.shutdown();
+		double[] exact = OddsAnalyzer.getLandingProbabilities(simulator.spots.getLayout());
+		System.out.println("Spots           RTP      +-99%     Exact");
+		int[] betValues = tally.betValues;
+		for (int c = 1; c < 1 << betValues.length; c++) {
+			double expected = 0;
+			for (int i = 0; i < betValues.length; i++)
+				if ((c & 1 << i) != 0)
+					expected += exact[betValues[i]] * returnOf(c, betValues[i]);
+			System.out.printf("%-14s  %.5f  %.5f  %.5f%n", tally.describe(c), tally.getMean(c), tally.getHalfWidth(c),
+					expected);
+		}
+	}
+
+}
@@ -0,0 +1,90 @@
+package com.martipops.beatthebird;
+
+import com.badlogic.gdx.Graphics;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.profiling.GLProfiler;
+
+/**
+ * Class RenderStats:
+ * Counts the render calls and texture binds of each frame, so it can be checked
+ * that the stage is drawn in as few batches as possible.
+ */
+public class RenderStats {
+
+	/**
+	 * Counts the GL calls made each frame
+	 */
+	private final GLProfiler profiler;
+	/**
+	 * The batch the stage is drawn with
+	 */
+	private final Batch batch;
+	/**
+	 * The number of times the batch flushed last frame
+	 */
+	private int renderCalls;
+	/**
+	 * The number of textures bound last frame
+	 */
+	private int textureBindings;
+	/**
+	 * The number of GL draw calls last frame
+	 */
+	private int drawCalls;
+
+	/**
+	 * Constructs the counters and starts profiling.
+	 *
+	 * @param graphics the graphics to profile
+	 * @param batch    the batch the stage is drawn with
+	 */
+	public RenderStats(Graphics graphics, Batch batch) {
+		this.batch = batch;
+		profiler = new GLProfiler(graphics);
+		profiler.enable();
+	}
+
+	/**
+	 * Resets the counters, called before the frame is drawn.
+	 */
+	public void begin() {
+		profiler.reset();
+	}
+
+	/**
+	 * Stores the counters of the frame, called after the frame is drawn.
+	 */
+	public void end() {
+		renderCalls = batch instanceof SpriteBatch ? ((SpriteBatch) batch).renderCalls : 0;
+		textureBindings = profiler.getTextureBindings();
+		drawCalls = profiler.getDrawCalls();
+	}
+
+	/**
+	 * @return the number of times the batch flushed last frame
+	 */
+	public int getRenderCalls() {
+		return renderCalls;
+	}
+
+	/**
+	 * @return the number of textures bound last frame
+	 */
+	public int getTextureBindings() {
+		return textureBindings;
+	}
+
+	/**
+	 * @return the number of GL draw calls last frame
+	 */
+	public int getDrawCalls() {
+		return drawCalls;
+	}
+
+	@Override
+	public String toString() {
+		return "Render calls: " + renderCalls + ", texture binds: " + textureBindings + ", draw calls: " + drawCalls;
+	}
+
+}
@@ -0,0 +1,179 @@
+package com.martipops.beatthebird;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.scenes.scene2d.Actor;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.IdentityMap;
+
+/**
+ * Class ResourceRegistry:
+ * Hands out shared resources, like fonts, and counts who holds each one. Loaded
+ * assets come from {@link GameAssets}, so every inventory shares one font no
+ * matter how many there are. Other resources can be tracked too, and are
+ * disposed when their last holder releases them.
+ *
+ * At shutdown {@link #dispose()} reports every resource that is still held and
+ * by whom, and {@link #reportGlLeaks()} reports textures and shaders that were
+ * never disposed.
+ */
+public class ResourceRegistry implements Disposable {
+
+	/**
+	 * Class Entry:
+	 * A resource and the objects holding it.
+	 */
+	private static class Entry {
+		final String name;
+		/**
+		 * The resource if the registry disposes it, null if the asset manager does
+		 */
+		final Disposable owned;
+		final Array<Object> holders = new Array<Object>(false, 4);
+
+		Entry(String name, Disposable owned) {
+			this.name = name;
+			this.owned = owned;
+		}
+	}
+
+	/**
+	 * The loaded assets
+	 */
+	private final GameAssets assets;
+	/**
+	 * The entry of every resource handed out, by resource
+	 */
+	private final IdentityMap<Object, Entry> entries = new IdentityMap<Object, Entry>();
+
+	/**
+	 * Constructs a registry.
+	 *
+	 * @param assets the assets to hand out
+	 */
+	public ResourceRegistry(GameAssets assets) {
+		this.assets = assets;
+	}
+
+	/**
+	 * Gets a loaded asset for a holder. The asset stays with the asset manager,
+	 * which disposes it.
+	 *
+	 * @param asset  the asset
+	 * @param holder the object that will use it
+	 * @return the asset
+	 */
+	public <T> T acquire(AssetDescriptor<T> asset, Object holder) {
+		T resource = assets.get(asset);
+		Entry entry = entries.get(resource);
+		if (entry == null) {
+			entry = new Entry(asset.fileName, null);
+			entries.put(resource, entry);
+		}
+		entry.holders.add(holder);
+		return resource;
+	}
+
+	/**
+	 * Tracks a resource created by a holder. It is disposed when the last holder
+	 * releases it.
+	 *
+	 * @param name     a name for reports
+	 * @param resource the resource
+	 * @param holder   the object that created it
+	 * @return the resource
+	 */
+	public <T extends Disposable> T track(String name, T resource, Object holder) {
+		Entry entry = entries.get(resource);
+		if (entry == null) {
+			entry = new Entry(name, resource);
+			entries.put(resource, entry);
+		}
+		entry.holders.add(holder);
+		return resource;
+	}
+
+	/**
+	 * Releases a holder's reference to a resource, disposing it if the registry
+	 * owns it and nobody else holds it.
+	 *
+	 * @param resource the resource
+	 * @param holder   the object that acquired it
+	 */
+	public void release(Object resource, Object holder) {
+		Entry entry = entries.get(resource);
+		if (entry == null || !entry.holders.removeValue(holder, true)) {
+			Gdx.app.error("ResourceRegistry", describe(holder) + " released a resource it did not hold");
+			return;
+		}
+		if (entry.holders.size == 0) {
+			entries.remove(resource);
+			if (entry.owned != null)
+				entry.owned.dispose();
+		}
+	}
+
+	/**
+	 * @param resource a resource
+	 * @return the number of holders of the resource
+	 */
+	public int getHolders(Object resource) {
+		Entry entry = entries.get(resource);
+		return entry == null ? 0 : entry.holders.size;
+	}
+
+	/**
+	 * @return a line for every reference that was never released
+	 */
+	public Array<String> findLeaks() {
+		Array<String> leaks = new Array<String>();
+		for (Entry entry : entries.values())
+			for (Object holder : entry.holders)
+				leaks.add(entry.name + " is still held by " + describe(holder));
+		return leaks;
+	}
+
+	/**
+	 * Reports every reference that was never released, then disposes the
+	 * resources the registry owns.
+	 */
+	@Override
+	public void dispose() {
+		for (String leak : findLeaks())
+			Gdx.app.error("ResourceRegistry", leak);
+		for (Entry entry : entries.values())
+			if (entry.owned != null)
+				entry.owned.dispose();
+		entries.clear();
+	}
+
+	/**
+	 * Reports the textures and shaders that were never disposed. Call it after
+	 * everything was disposed.
+	 *
+	 * @return the number of GL resources still alive
+	 */
+	public static int reportGlLeaks() {
+		int textures = Texture.getNumManagedTextures();
+		int shaders = ShaderProgram.getNumManagedShaderPrograms();
+		if (textures > 0)
+			Gdx.app.error("ResourceRegistry", textures + " textures were never disposed");
+		if (shaders > 0)
+			Gdx.app.error("ResourceRegistry", shaders + " shaders were never disposed");
+		return textures + shaders;
+	}
+
+	/**
+	 * @return the holder's class and, for actors, its name
+	 */
+	private static String describe(Object holder) {
+		String name = holder.getClass().getSimpleName();
+		if (holder instanceof Actor && ((Actor) holder).getName() != null)
+			name += " \"" + ((Actor) holder).getName() + "\"";
+		return name;
+	}
+
+}
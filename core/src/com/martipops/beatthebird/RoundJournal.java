@@ -0,0 +1,527 @@
+package com.martipops.beatthebird;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Class RoundJournal:
+ * An append-only journal of every balance reset, bet, spin, settlement and
+ * layout switch, written to a memory-mapped file. Appending a record only
+ * copies 16 bytes into the mapped buffer; a background thread forces the file
+ * to disk every few milliseconds, so one sync covers every record appended
+ * since the last one (group commit) and the game thread never waits on the
+ * disk.
+ *
+ * When a journal is opened, its records are replayed into a {@link State}
+ * holding the player's balance and the bet on every spot, which is how
+ * {@link GameMain} gets its {@link Inventory} totals back after a restart.
+ * Each record carries a check of its contents and position, so a record that
+ * was only partly written before a crash ends the journal instead of being
+ * replayed.
+ *
+ * The file is mapped {@link #SEGMENT_SIZE} bytes at a time and grows by a
+ * segment whenever one fills up.
+ */
+public class RoundJournal implements Closeable {
+
+	/**
+	 * The first 4 bytes of every journal, "BTJ1"
+	 */
+	static final int MAGIC = 0x42544a31;
+
+	/**
+	 * The size of the header and of every record
+	 */
+	public static final int RECORD_SIZE = 16;
+
+	/**
+	 * The number of bytes mapped at once
+	 */
+	static final int SEGMENT_SIZE = 1 << 20;
+
+	/**
+	 * The default time between commits in milliseconds
+	 */
+	public static final long DEFAULT_COMMIT_MILLIS = 20;
+
+	/**
+	 * Record types
+	 */
+	static final int BALANCE = 1, BET = 2, SPIN = 3, SETTLE = 4, LAYOUT = 5;
+
+	/**
+	 * Class State:
+	 * The totals rebuilt by replaying a journal.
+	 */
+	public static class State {
+		private int player;
+		private final int[] bets = new int[WheelLayout.MAX_SPOT + 1];
+		private long rounds;
+		private long records;
+		private boolean spinning;
+		private int layout;
+
+		/**
+		 * Applies one record.
+		 */
+		void apply(int type, int a, int b) {
+			switch (type) {
+				case BALANCE:
+					player = a;
+					break;
+				case BET:
+					player -= b;
+					if (a >= 0 && a < bets.length)
+						bets[a] += b;
+					break;
+				case SPIN:
+					spinning = true;
+					break;
+				case SETTLE:
+					player += b;
+					for (int i = 0; i < bets.length; i++)
+						bets[i] = 0;
+					spinning = false;
+					rounds++;
+					break;
+				case LAYOUT:
+					layout = a;
+					break;
+			}
+			records++;
+		}
+
+		/**
+		 * @return the player's balance
+		 */
+		public int getPlayer() {
+			return player;
+		}
+
+		/**
+		 * @param spot the value of a spot
+		 * @return the amount bet on the spot
+		 */
+		public int getBet(int spot) {
+			return spot >= 0 && spot < bets.length ? bets[spot] : 0;
+		}
+
+		/**
+		 * @return the {@link WheelLayout#getFingerprint()} of the layout the bets
+		 *         were placed on, or 0 if the journal never recorded one
+		 */
+		public int getLayout() {
+			return layout;
+		}
+
+		/**
+		 * @return the number of rounds settled
+		 */
+		public long getRounds() {
+			return rounds;
+		}
+
+		/**
+		 * @return the number of records replayed
+		 */
+		public long getRecords() {
+			return records;
+		}
+
+		/**
+		 * @return true if the journal ended during a spin, which means the bets are
+		 *         still on the spots but the round was never settled
+		 */
+		public boolean isSpinning() {
+			return spinning;
+		}
+
+		/**
+		 * @return true if nothing was replayed
+		 */
+		public boolean isEmpty() {
+			return records == 0;
+		}
+	}
+
+	/**
+	 * The file the journal is written to
+	 */
+	private final RandomAccessFile file;
+	/**
+	 * The channel of the file
+	 */
+	private final FileChannel channel;
+	/**
+	 * The state rebuilt when the journal was opened
+	 */
+	private final State recovered = new State();
+	/**
+	 * The segment records are appended to
+	 */
+	private MappedByteBuffer buffer;
+	/**
+	 * The index of the segment records are appended to
+	 */
+	private long segment;
+	/**
+	 * The number of records in the journal
+	 */
+	private long written;
+	/**
+	 * The number of records forced to disk
+	 */
+	private long committed;
+	/**
+	 * The number of times the file was forced to disk
+	 */
+	private long commits;
+	/**
+	 * The thread committing in the background, or null
+	 */
+	private final Thread committer;
+	/**
+	 * True once the journal is closed
+	 */
+	private volatile boolean closed;
+
+	/**
+	 * Opens a journal that commits every {@link #DEFAULT_COMMIT_MILLIS}
+	 * milliseconds, creating it if it does not exist.
+	 *
+	 * @param path the journal file
+	 * @throws IOException if the file can't be opened or is not a journal
+	 */
+	public RoundJournal(File path) throws IOException {
+		this(path, DEFAULT_COMMIT_MILLIS);
+	}
+
+	/**
+	 * Opens a journal, creating it if it does not exist, and replays it.
+	 *
+	 * @param path         the journal file
+	 * @param commitMillis the time between commits, or 0 to only commit when
+	 *                     {@link #commit()} is called
+	 * @throws IOException if the file can't be opened or is not a journal
+	 */
+	public RoundJournal(File path, long commitMillis) throws IOException {
+		file = new RandomAccessFile(path, "rw");
+		channel = file.getChannel();
+		try {
+			recover();
+		} catch (IOException e) {
+			file.close();
+			throw e;
+		}
+		if (commitMillis > 0) {
+			committer = new Thread(new Committer(commitMillis), "RoundJournal " + path.getName());
+			committer.setDaemon(true);
+			committer.start();
+		} else {
+			committer = null;
+		}
+	}
+
+	/**
+	 * Reads the header, replays every valid record and maps the segment the next
+	 * record goes into.
+	 */
+	private void recover() throws IOException {
+		if (channel.size() == 0) {
+			buffer = map(0);
+			buffer.putInt(0, MAGIC);
+			buffer.force();
+			return;
+		}
+		buffer = map(0);
+		if (buffer.getInt(0) != MAGIC)
+			throw new IOException("Not a round journal");
+		long end = channel.size() / RECORD_SIZE - 1;
+		while (written < end) {
+			if (segmentOf(written) != segment)
+				buffer = map(segmentOf(written));
+			int offset = offset(written);
+			int type = buffer.getInt(offset);
+			int a = buffer.getInt(offset + 4);
+			int b = buffer.getInt(offset + 8);
+			if (type == 0 || buffer.getInt(offset + 12) != check(written, type, a, b))
+				break;
+			recovered.apply(type, a, b);
+			written++;
+		}
+		committed = written;
+		// drop everything after the last valid record, so a record that reached
+		// the disk after a torn one can never be replayed later
+		long next = segmentOf(written);
+		if (channel.size() > (next + 1) * SEGMENT_SIZE) {
+			buffer = null;
+			channel.truncate((next + 1) * SEGMENT_SIZE);
+		}
+		buffer = map(next);
+		for (int i = offset(written); i < SEGMENT_SIZE; i += 8)
+			buffer.putLong(i, 0);
+		buffer.force();
+	}
+
+	/**
+	 * Maps a segment of the file, growing the file if needed.
+	 */
+	private MappedByteBuffer map(long index) throws IOException {
+		segment = index;
+		return channel.map(FileChannel.MapMode.READ_WRITE, index * SEGMENT_SIZE, SEGMENT_SIZE);
+	}
+
+	/**
+	 * @param record the index of a record
+	 * @return the index of the segment the record is in
+	 */
+	private static long segmentOf(long record) {
+		return (record + 1) * RECORD_SIZE / SEGMENT_SIZE;
+	}
+
+	/**
+	 * @param record the index of a record
+	 * @return the offset of the record in its segment
+	 */
+	private static int offset(long record) {
+		return (int) ((record + 1) * RECORD_SIZE % SEGMENT_SIZE);
+	}
+
+	/**
+	 * @return a hash of a record's contents and position
+	 */
+	static int check(long record, int type, int a, int b) {
+		int h = (int) (record ^ (record >>> 32)) * 0x9e3779b1;
+		h = (h ^ type) * 0x85ebca6b;
+		h = (h ^ a) * 0xc2b2ae35;
+		h = (h ^ b) * 0x27d4eb2f;
+		return h ^ (h >>> 15);
+	}
+
+	/**
+	 * Appends a record.
+	 */
+	private synchronized void append(int type, int a, int b) {
+		if (closed)
+			throw new IllegalStateException("Journal is closed");
+		if (segmentOf(written) != segment) {
+			// the segment is full, make sure it is on disk before moving on
+			buffer.force();
+			try {
+				buffer = map(segmentOf(written));
+			} catch (IOException e) {
+				throw new IllegalStateException("Could not grow the journal", e);
+			}
+		}
+		int offset = offset(written);
+		buffer.putInt(offset + 4, a);
+		buffer.putInt(offset + 8, b);
+		buffer.putInt(offset + 12, check(written, type, a, b));
+		buffer.putInt(offset, type);
+		written++;
+	}
+
+	/**
+	 * Records the player's balance being set.
+	 *
+	 * @param total the new balance
+	 */
+	public void balance(int total) {
+		append(BALANCE, total, 0);
+	}
+
+	/**
+	 * Records a bet, moving an amount from the player onto a spot.
+	 *
+	 * @param spot   the value of the spot
+	 * @param amount the amount moved, negative if taken back
+	 */
+	public void bet(int spot, int amount) {
+		append(BET, spot, amount);
+	}
+
+	/**
+	 * Records a spin starting.
+	 *
+	 * @param speed the speed of the spin
+	 */
+	public void spin(int speed) {
+		append(SPIN, speed, 0);
+	}
+
+	/**
+	 * Records a round being settled, paying out the winnings and clearing every
+	 * bet.
+	 *
+	 * @param spot     the spot the wheel landed on
+	 * @param winnings the amount paid back to the player
+	 */
+	public void settle(int spot, int winnings) {
+		append(SETTLE, spot, winnings);
+	}
+
+	/**
+	 * Records the wheel switching to another layout. Bets taken back by the
+	 * switch must be recorded before it.
+	 *
+	 * @param layout the new layout
+	 */
+	public void layout(WheelLayout layout) {
+		append(LAYOUT, layout.getFingerprint(), layout.getBetCount());
+	}
+
+	/**
+	 * Forces every record appended so far to disk. Returns right away if another
+	 * commit already covered them.
+	 */
+	public void commit() {
+		MappedByteBuffer target;
+		long end;
+		synchronized (this) {
+			if (committed >= written || buffer == null)
+				return;
+			target = buffer;
+			end = written;
+		}
+		target.force();
+		synchronized (this) {
+			if (end > committed)
+				committed = end;
+			commits++;
+		}
+	}
+
+	/**
+	 * @return the state replayed when the journal was opened
+	 */
+	public State getRecovered() {
+		return recovered;
+	}
+
+	/**
+	 * @return the number of records in the journal
+	 */
+	public synchronized long getRecords() {
+		return written;
+	}
+
+	/**
+	 * @return the number of records forced to disk
+	 */
+	public synchronized long getCommitted() {
+		return committed;
+	}
+
+	/**
+	 * @return the number of times the file was forced to disk
+	 */
+	public synchronized long getCommits() {
+		return commits;
+	}
+
+	/**
+	 * Commits every record, stops the background thread and closes the file.
+	 */
+	@Override
+	public void close() throws IOException {
+		if (closed)
+			return;
+		if (committer != null) {
+			committer.interrupt();
+			try {
+				committer.join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		commit();
+		synchronized (this) {
+			closed = true;
+			buffer = null;
+		}
+		file.close();
+	}
+
+	/**
+	 * Class Committer:
+	 * Commits the journal at a fixed interval until it is closed.
+	 */
+	private class Committer implements Runnable {
+		private final long millis;
+
+		Committer(long millis) {
+			this.millis = millis;
+		}
+
+		@Override
+		public void run() {
+			while (!closed) {
+				try {
+					Thread.sleep(millis);
+				} catch (InterruptedException e) {
+					return;
+				}
+				commit();
+			}
+		}
+	}
+
+	/**
+	 * Appends bet, spin and settle records for a number of rounds to a journal,
+	 * then reopens it and checks the replayed balance.
+	 *
+	 * @param args the number of rounds, a million by default, and the journal file
+	 * @throws IOException if the journal can't be written
+	 */
+	public static void main(String[] args) throws IOException {
+		int rounds = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+		File path = args.length > 1 ? new File(args[1]) : File.createTempFile("rounds", ".journal");
+		if (args.length < 2)
+			path.deleteOnExit();
+		GameTable table = new GameTable(0, 1000, new TableRandom(System.nanoTime()), SpinSolver.DEFAULT);
+		final RoundJournal journal = new RoundJournal(path);
+		long before = journal.getRecovered().getRecords();
+		table.setBalance(journal.getRecovered().isEmpty() ? 1000 : journal.getRecovered().getPlayer());
+		journal.balance(table.getBalance());
+		table.setListener(new GameTable.Listener() {
+			@Override
+			public void settled(GameTable table, int spot, long winnings) {
+				// bets of 10 never win more than an int holds
+				journal.settle(spot, (int) winnings);
+			}
+		});
+		long start = System.nanoTime();
+		for (int i = 0; i < rounds; i++) {
+			if (table.getBalance() < 10) {
+				table.setBalance(1000);
+				journal.balance(1000);
+			}
+			int spot = GameInterface.BET_SPOTS[i % GameInterface.BET_SPOTS.length];
+			if (table.placeBet(spot, 10))
+				journal.bet(spot, 10);
+			int speed = WheelPhysics.MIN_SPIN_SPEED + i % (WheelPhysics.MAX_SPIN_SPEED - WheelPhysics.MIN_SPIN_SPEED);
+			table.spin(speed);
+			journal.spin(speed);
+			table.finishSpin();
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		long records = journal.getRecords() - before;
+		journal.close();
+		System.out.printf("%d rounds, %d records in %.2f s: %.0f rounds/s, %d commits%n", rounds, records, seconds,
+				rounds / seconds, journal.getCommits());
+
+		long start2 = System.nanoTime();
+		RoundJournal reopened = new RoundJournal(path, 0);
+		State state = reopened.getRecovered();
+		reopened.close();
+		System.out.printf("Replayed %d records in %.1f ms: balance %d, expected %d%n", state.getRecords(),
+				(System.nanoTime() - start2) / 1e6, state.getPlayer(), table.getBalance());
+		if (state.getPlayer() != table.getBalance())
+			System.exit(1);
+	}
+
+}
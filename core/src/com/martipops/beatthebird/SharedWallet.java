@@ -0,0 +1,170 @@
+package com.martipops.beatthebird;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Class SharedWallet:
+ * The balances of players who may sit at several tables at once, on different
+ * threads. Every change is a compare and swap on the player's balance, so no
+ * thread ever waits for a lock, and a debit that would overdraw the balance or
+ * a credit that would overflow it fails without changing anything.
+ *
+ * Each player's balance sits on its own cache line, so threads changing
+ * different players never slow each other down, and only the tables of one
+ * player contend with each other. Players are added on first use into a fixed
+ * size open addressing table, also by compare and swap.
+ *
+ * Nothing is kept on disk, {@link WalletStore} does that for the game's single
+ * thread. SharedWalletBenchmark measures how it scales with threads.
+ */
+public class SharedWallet {
+
+	/**
+	 * The longs between two balances, 64 bytes, so no two share a cache line
+	 */
+	static final int STRIDE = 8;
+
+	/**
+	 * The player id + 1 in each slot, 0 for an empty slot
+	 */
+	private final AtomicIntegerArray keys;
+	/**
+	 * The balance of the player in slot i at index i * STRIDE
+	 */
+	private final AtomicLongArray balances;
+	private final int mask;
+
+	/**
+	 * Constructs an empty wallet.
+	 *
+	 * @param capacity the most players it will hold
+	 */
+	public SharedWallet(int capacity) {
+		int slots = Integer.highestOneBit(Math.max(2, capacity) * 2 - 1) * 2;
+		keys = new AtomicIntegerArray(slots);
+		balances = new AtomicLongArray(slots * STRIDE);
+		mask = slots - 1;
+	}
+
+	/**
+	 * @param player a player id
+	 * @return the player's balance, 0 for a player never seen
+	 */
+	public long getBalance(int player) {
+		int slot = find(player, false);
+		return slot < 0 ? 0 : balances.get(slot * STRIDE);
+	}
+
+	/**
+	 * Adds an amount to a player's balance if it fits.
+	 *
+	 * @param player a player id
+	 * @param amount the amount to add
+	 * @return true if it was added, false if the balance would overflow
+	 */
+	public boolean credit(int player, long amount) {
+		checkAmount(amount);
+		int index = find(player, true) * STRIDE;
+		while (true) {
+			long balance = balances.get(index);
+			if (balance > Long.MAX_VALUE - amount)
+				return false;
+			if (balances.compareAndSet(index, balance, balance + amount))
+				return true;
+		}
+	}
+
+	/**
+	 * Takes an amount from a player's balance if there is enough.
+	 *
+	 * @param player a player id
+	 * @param amount the amount to take
+	 * @return true if it was taken, false if the balance is too low
+	 */
+	public boolean debit(int player, long amount) {
+		checkAmount(amount);
+		int slot = find(player, false);
+		if (slot < 0)
+			return amount == 0;
+		int index = slot * STRIDE;
+		while (true) {
+			long balance = balances.get(index);
+			if (balance < amount)
+				return false;
+			if (balances.compareAndSet(index, balance, balance - amount))
+				return true;
+		}
+	}
+
+	/**
+	 * Replaces a player's balance.
+	 *
+	 * @param player  a player id
+	 * @param balance the new balance, not negative
+	 * @return the old balance
+	 */
+	public long set(int player, long balance) {
+		checkAmount(balance);
+		return balances.getAndSet(find(player, true) * STRIDE, balance);
+	}
+
+	/**
+	 * @return the number of players in the wallet
+	 */
+	public int size() {
+		int size = 0;
+		for (int i = 0; i < keys.length(); i++)
+			if (keys.get(i) != 0)
+				size++;
+		return size;
+	}
+
+	/**
+	 * Finds the slot of a player, adding the player if asked to.
+	 *
+	 * @param player a player id, not negative
+	 * @param add    true to add a player that is not in the wallet
+	 * @return the slot, or -1 if the player is not in the wallet and wasn't added
+	 * @throws IllegalStateException if the wallet is full
+	 */
+	private int find(int player, boolean add) {
+		if (player < 0)
+			throw new IllegalArgumentException("Player ids can't be negative: " + player);
+		int key = player + 1;
+		int start = mix(player) & mask;
+		int i = start;
+		do {
+			int k = keys.get(i);
+			if (k == key)
+				return i;
+			if (k == 0) {
+				if (!add)
+					return -1;
+				if (keys.compareAndSet(i, 0, key))
+					return i;
+				// another thread took the slot, it might have added this player
+				if (keys.get(i) == key)
+					return i;
+			}
+			i = (i + 1) & mask;
+		} while (i != start);
+		if (add)
+			throw new IllegalStateException("The wallet is full");
+		return -1;
+	}
+
+	private static void checkAmount(long amount) {
+		if (amount < 0)
+			throw new IllegalArgumentException("Amounts can't be negative: " + amount);
+	}
+
+	/**
+	 * Spreads consecutive ids over the table.
+	 */
+	private static int mix(int h) {
+		h *= 0x9e3779b9;
+		return h ^ (h >>> 16);
+	}
+
+}
@@ -0,0 +1,292 @@
+package com.martipops.beatthebird;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Class SpinLog:
+ * A compact binary record of everything a player did at a table: the seed of
+ * its {@link TableRandom} and the balance it started with, followed by every
+ * bet, spin, balance reset and layout switch. A log starts on
+ * {@link WheelLayout#DEFAULT}. Because the outcome of every spin only depends
+ * on the seed and the order of these inputs, {@link #replay(byte[],
+ * GameTable.Listener)} reproduces every round exactly, without a stage and
+ * without animating the wheel.
+ *
+ * The log starts with a 4 byte magic number and the 8 byte seed, followed by
+ * one byte per record type and its values as variable length ints, so a round
+ * with a bet is about 5 bytes. A layout switch carries the whole layout as
+ * {@link WheelLayout#toProperties()}, so a log replays without the layout
+ * file.
+ */
+public class SpinLog {
+
+	/**
+	 * The first 4 bytes of every log, "BTB1"
+	 */
+	static final int MAGIC = 0x42544231;
+
+	/**
+	 * Record types
+	 */
+	static final int BET = 1, SPIN = 2, SPIN_AT = 3, BALANCE = 4, LAYOUT = 5;
+
+	/**
+	 * The bytes written so far
+	 */
+	private byte[] bytes = new byte[64];
+	/**
+	 * The number of bytes written
+	 */
+	private int size;
+
+	/**
+	 * Starts a log.
+	 *
+	 * @param seed    the seed of the table's outcome generator
+	 * @param balance the player's starting balance
+	 */
+	public SpinLog(long seed, int balance) {
+		writeInt(MAGIC);
+		writeInt((int) (seed >>> 32));
+		writeInt((int) seed);
+		writeVarInt(zigzag(balance));
+	}
+
+	/**
+	 * Records a bet that was placed.
+	 *
+	 * @param spot   the value of the spot bet on
+	 * @param amount the amount moved onto the spot, negative if taken back
+	 */
+	public void bet(int spot, int amount) {
+		write(BET);
+		writeVarInt(spot);
+		writeVarInt(zigzag(amount));
+	}
+
+	/**
+	 * Records a spin with a speed drawn from the table's generator.
+	 */
+	public void spin() {
+		write(SPIN);
+	}
+
+	/**
+	 * Records a spin with a given speed.
+	 *
+	 * @param speed the speed of the spin
+	 */
+	public void spin(int speed) {
+		write(SPIN_AT);
+		writeVarInt(speed);
+	}
+
+	/**
+	 * Records the player's balance being set.
+	 *
+	 * @param balance the new balance
+	 */
+	public void balance(int balance) {
+		write(BALANCE);
+		writeVarInt(zigzag(balance));
+	}
+
+	/**
+	 * Records the wheel switching to another layout. Bets taken back by the
+	 * switch must be recorded before it.
+	 *
+	 * @param layout the new layout
+	 */
+	public void layout(WheelLayout layout) {
+		byte[] properties = layout.toProperties().getBytes(StandardCharsets.ISO_8859_1);
+		write(LAYOUT);
+		writeVarInt(properties.length);
+		for (byte b : properties)
+			write(b);
+	}
+
+	/**
+	 * @return the number of bytes in the log
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return a copy of the log
+	 */
+	public byte[] toByteArray() {
+		return Arrays.copyOf(bytes, size);
+	}
+
+	/**
+	 * Writes the log to a stream.
+	 *
+	 * @param out the stream to write to
+	 * @throws IOException if writing fails
+	 */
+	public void writeTo(OutputStream out) throws IOException {
+		out.write(bytes, 0, size);
+	}
+
+	private void write(int b) {
+		if (size == bytes.length)
+			bytes = Arrays.copyOf(bytes, size * 2);
+		bytes[size++] = (byte) b;
+	}
+
+	private void writeInt(int v) {
+		write(v >>> 24);
+		write(v >>> 16);
+		write(v >>> 8);
+		write(v);
+	}
+
+	private void writeVarInt(int v) {
+		while ((v & ~0x7f) != 0) {
+			write((v & 0x7f) | 0x80);
+			v >>>= 7;
+		}
+		write(v);
+	}
+
+	private static int zigzag(int v) {
+		return (v << 1) ^ (v >> 31);
+	}
+
+	/**
+	 * Class Reader:
+	 * Reads the values of a log in order.
+	 */
+	private static class Reader {
+		final byte[] bytes;
+		int pos;
+
+		Reader(byte[] bytes) {
+			this.bytes = bytes;
+		}
+
+		boolean hasMore() {
+			return pos < bytes.length;
+		}
+
+		int read() {
+			if (pos >= bytes.length)
+				throw new IllegalArgumentException("Spin log ends in the middle of a record");
+			return bytes[pos++] & 0xff;
+		}
+
+		int readInt() {
+			return read() << 24 | read() << 16 | read() << 8 | read();
+		}
+
+		int readVarInt() {
+			int v = 0;
+			for (int shift = 0; shift < 35; shift += 7) {
+				int b = read();
+				v |= (b & 0x7f) << shift;
+				if ((b & 0x80) == 0)
+					return v;
+			}
+			throw new IllegalArgumentException("Bad number at byte " + pos);
+		}
+
+		int readZigzag() {
+			int v = readVarInt();
+			return (v >>> 1) ^ -(v & 1);
+		}
+	}
+
+	/**
+	 * Replays a log on a new table, settling every spin immediately.
+	 *
+	 * @param log      the bytes of the log
+	 * @param listener notified of every settled round, or null
+	 * @return the table after the last record
+	 * @throws IllegalArgumentException if the log is damaged or does not match
+	 *                                  what the table allows
+	 */
+	public static GameTable replay(byte[] log, GameTable.Listener listener) {
+		Reader in = new Reader(log);
+		if (in.readInt() != MAGIC)
+			throw new IllegalArgumentException("Not a spin log");
+		long seed = (long) in.readInt() << 32 | (in.readInt() & 0xffffffffL);
+		GameTable table = new GameTable(0, in.readZigzag(), new TableRandom(seed), SpinSolver.DEFAULT);
+		table.setListener(listener);
+		while (in.hasMore()) {
+			int start = in.pos;
+			switch (in.read()) {
+				case BET:
+					int spot = in.readVarInt();
+					int amount = in.readZigzag();
+					if (!table.placeBet(spot, amount))
+						throw new IllegalArgumentException("Bet of " + amount + " on " + spot + " at byte " + start
+								+ " was not allowed");
+					break;
+				case SPIN:
+					table.spin();
+					table.finishSpin();
+					break;
+				case SPIN_AT:
+					table.spin(in.readVarInt());
+					table.finishSpin();
+					break;
+				case BALANCE:
+					table.setBalance(in.readZigzag());
+					break;
+				case LAYOUT:
+					int length = in.readVarInt();
+					if (length < 0 || length > log.length - in.pos)
+						throw new IllegalArgumentException("Spin log ends in the middle of a record");
+					WheelLayout layout;
+					try {
+						layout = WheelLayout.load(new ByteArrayInputStream(log, in.pos, length));
+					} catch (IOException e) {
+						throw new IllegalArgumentException("Bad layout at byte " + start, e);
+					}
+					in.pos += length;
+					if (!table.setSpotTable(new SpotTable(layout)))
+						throw new IllegalArgumentException("Layout switch at byte " + start + " was not allowed");
+					break;
+				default:
+					throw new IllegalArgumentException("Unknown record at byte " + start);
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Replays a log file from the command line and prints every round.
+	 *
+	 * @param args the path of the log file
+	 * @throws IOException if the file can't be read
+	 */
+	public static void main(String[] args) throws IOException {
+		if (args.length < 1) {
+			System.err.println("Usage: SpinLog <log file>");
+			System.exit(2);
+		}
+		ByteArrayOutputStream data = new ByteArrayOutputStream();
+		try (InputStream in = new FileInputStream(args[0])) {
+			byte[] buffer = new byte[8192];
+			for (int n; (n = in.read(buffer)) > 0;)
+				data.write(buffer, 0, n);
+		}
+		GameTable table = replay(data.toByteArray(), new GameTable.Listener() {
+			@Override
+			public void settled(GameTable table, int spot, long winnings) {
+				System.out.println("Round " + table.getRounds() + ": landed on " + spot + ", won " + winnings
+						+ ", balance " + table.getBalance());
+			}
+		});
+		System.out.println(table.getRounds() + " rounds, final balance " + table.getBalance());
+	}
+
+}
@@ -0,0 +1,136 @@
+package com.martipops.beatthebird;
+
+/**
+ * Class SpinSolver:
+ * Predicts where a spin stops without stepping through it. For a fixed step the
+ * distance a spin travels only depends on its starting speed, and
+ * {@link WheelActor#spin()} only ever picks whole speeds between
+ * {@link WheelPhysics#MIN_SPIN_SPEED} and {@link WheelPhysics#MAX_SPIN_SPEED},
+ * so every distance is stepped once with {@link WheelPhysics} when the solver
+ * is built and looked up afterwards. Because the table is built with the same
+ * float math as the wheel, the stop angle is exactly the one the wheel lands
+ * on, and a client can animate towards it.
+ */
+public class SpinSolver {
+
+	/**
+	 * A solver for the step the game runs at
+	 */
+	public static final SpinSolver DEFAULT = new SpinSolver(WheelPhysics.DEFAULT_STEP);
+
+	/**
+	 * The step the distances were computed with
+	 */
+	private final float delta;
+
+	/**
+	 * The lowest speed in the table
+	 */
+	private final int minSpeed;
+
+	/**
+	 * The degrees travelled, indexed by speed - minSpeed
+	 */
+	private final float[] distances;
+
+	/**
+	 * The number of steps until the wheel stops, indexed by speed - minSpeed
+	 */
+	private final int[] steps;
+
+	/**
+	 * Constructs a solver covering the speeds {@link WheelActor#spin()} uses.
+	 *
+	 * @param delta the fixed step the wheel is integrated with
+	 */
+	public SpinSolver(float delta) {
+		this(delta, WheelPhysics.MIN_SPIN_SPEED, WheelPhysics.MAX_SPIN_SPEED);
+	}
+
+	/**
+	 * Constructs a solver for a range of speeds.
+	 *
+	 * @param delta    the fixed step the wheel is integrated with
+	 * @param minSpeed the lowest speed to precompute
+	 * @param maxSpeed the highest speed to precompute
+	 */
+	public SpinSolver(float delta, int minSpeed, int maxSpeed) {
+		if (maxSpeed < minSpeed)
+			throw new IllegalArgumentException("maxSpeed must be at least minSpeed");
+		this.delta = delta;
+		this.minSpeed = minSpeed;
+		distances = new float[maxSpeed - minSpeed + 1];
+		steps = new int[distances.length];
+		WheelPhysics wheel = new WheelPhysics();
+		for (int i = 0; i < distances.length; i++) {
+			wheel.setRotation(0);
+			wheel.spin(minSpeed + i);
+			int n = 1;
+			while (!wheel.step(delta))
+				n++;
+			distances[i] = wheel.getRotation();
+			steps[i] = n;
+		}
+	}
+
+	/**
+	 * @param speed the starting speed of a spin
+	 * @return the degrees the wheel travels before it stops
+	 */
+	public float getDistance(int speed) {
+		int i = speed - minSpeed;
+		if (i >= 0 && i < distances.length)
+			return distances[i];
+		// outside the table, step it through
+		WheelPhysics wheel = new WheelPhysics();
+		wheel.spin(speed);
+		while (!wheel.step(delta))
+			;
+		return wheel.getRotation();
+	}
+
+	/**
+	 * @param speed the starting speed of a spin
+	 * @return the number of steps the spin takes, which is how long a client has
+	 *         to animate it
+	 */
+	public int getSteps(int speed) {
+		int i = speed - minSpeed;
+		if (i >= 0 && i < steps.length)
+			return steps[i];
+		WheelPhysics wheel = new WheelPhysics();
+		wheel.spin(speed);
+		int n = 1;
+		while (!wheel.step(delta))
+			n++;
+		return n;
+	}
+
+	/**
+	 * @param startRotation the rotation of the wheel before the spin
+	 * @param speed         the starting speed of the spin
+	 * @return the rotation the wheel stops at
+	 */
+	public float getStopRotation(float startRotation, int speed) {
+		// WheelPhysics wraps the start angle the same way
+		return startRotation % 360f + getDistance(speed);
+	}
+
+	/**
+	 * @param spots         the table the wheel lands through
+	 * @param startRotation the rotation of the wheel before the spin
+	 * @param speed         the starting speed of the spin
+	 * @return the value of the spot the wheel lands on
+	 */
+	public int getSpot(SpotTable spots, float startRotation, int speed) {
+		return spots.getSpot(getStopRotation(startRotation, speed));
+	}
+
+	/**
+	 * @return the step the distances were computed with
+	 */
+	public float getDelta() {
+		return delta;
+	}
+
+}
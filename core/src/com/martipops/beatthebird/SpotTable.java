@@ -0,0 +1,166 @@
+package com.martipops.beatthebird;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Class SpotTable:
+ * A lookup table from wheel angle to spot value, compiled from a
+ * {@link WheelLayout}. The wheel is split into buckets of 1/100 of a degree,
+ * and each bucket stores the spot the whole bucket lands on. The few buckets
+ * that have a sector edge inside them store 0 and fall back to
+ * {@link WheelLayout#computeSpot(double)}, so the table always gives the same
+ * answer as the arithmetic.
+ *
+ * Every wheel, table and simulator lands through a table of its own, so one
+ * of them switching layouts never changes where another's spins land. Tables
+ * never change once built and can be shared freely between threads. Running
+ * this class validates a table against the arithmetic.
+ */
+public final class SpotTable {
+
+	/**
+	 * The number of buckets per degree
+	 */
+	public static final int BUCKETS_PER_DEGREE = 100;
+
+	/**
+	 * The table of {@link WheelLayout#DEFAULT}
+	 */
+	public static final SpotTable DEFAULT = new SpotTable(WheelLayout.DEFAULT);
+
+	/**
+	 * The layout the table was compiled from
+	 */
+	private final WheelLayout layout;
+
+	/**
+	 * The spot for each bucket, or 0 if the bucket contains a sector edge
+	 */
+	private final byte[] spots;
+
+	/**
+	 * Compiles a layout into a table.
+	 *
+	 * @param layout the layout
+	 */
+	public SpotTable(WheelLayout layout) {
+		this.layout = layout;
+		this.spots = build(layout);
+	}
+
+	/**
+	 * Looks up the spot for a rotation angle.
+	 *
+	 * @param rotation the rotation of the wheel in degrees
+	 * @return the value of the spot at that rotation
+	 */
+	public int getSpot(float rotation) {
+		int bucket = (int) ((rotation % 360.0) * BUCKETS_PER_DEGREE);
+		if (bucket >= 0 && bucket < spots.length) {
+			int spot = spots[bucket];
+			if (spot != 0)
+				return spot;
+		}
+		return layout.computeSpot(rotation);
+	}
+
+	/**
+	 * @return the layout the table was compiled from
+	 */
+	public WheelLayout getLayout() {
+		return layout;
+	}
+
+	/**
+	 * Builds the table. A bucket only gets a value if the arithmetic gives the
+	 * same spot a little past both of its edges, which covers any rounding in
+	 * the bucket index.
+	 *
+	 * @param layout the layout to compile
+	 * @return the table
+	 */
+	private static byte[] build(WheelLayout layout) {
+		byte[] spots = new byte[360 * BUCKETS_PER_DEGREE];
+		double margin = 1e-6;
+		for (int i = 0; i < spots.length; i++) {
+			double lo = (double) i / BUCKETS_PER_DEGREE;
+			double hi = (double) (i + 1) / BUCKETS_PER_DEGREE;
+			int first = layout.computeSpot(Math.max(0, lo - margin));
+			int last = layout.computeSpot(Math.min(hi + margin, Math.nextAfter(360.0, 0)));
+			spots[i] = (byte) (first == last ? first : 0);
+		}
+		return spots;
+	}
+
+	/**
+	 * @return the number of buckets that fall back to the arithmetic
+	 */
+	public int getFallbackBuckets() {
+		int n = 0;
+		for (byte spot : spots)
+			if (spot == 0)
+				n++;
+		return n;
+	}
+
+	/**
+	 * Checks the table against {@link WheelLayout#computeSpot(double)}.
+	 *
+	 * The quick check compares both edges of every bucket. The exhaustive check
+	 * compares every float from 0 up to 360. Every larger rotation is reduced by
+	 * an exact % 360 to one of those, so the exhaustive check covers every angle
+	 * the wheel can be at.
+	 *
+	 * @param exhaustive true to check every float instead of the bucket edges
+	 * @return the number of angles where the table and the arithmetic disagree
+	 */
+	public long validate(boolean exhaustive) {
+		long mismatches = 0;
+		if (exhaustive) {
+			int end = Float.floatToIntBits(360f);
+			for (int bits = 0; bits < end; bits++) {
+				float angle = Float.intBitsToFloat(bits);
+				if (getSpot(angle) != layout.computeSpot(angle))
+					mismatches++;
+			}
+		} else {
+			for (int i = 0; i < spots.length; i++) {
+				float lo = (float) i / BUCKETS_PER_DEGREE;
+				float hi = Math.nextAfter((float) (i + 1) / BUCKETS_PER_DEGREE, 0);
+				if (getSpot(lo) != layout.computeSpot(lo))
+					mismatches++;
+				if (getSpot(hi) != layout.computeSpot(hi))
+					mismatches++;
+			}
+		}
+		return mismatches;
+	}
+
+	/**
+	 * Validates the table of a layout from the command line.
+	 *
+	 * @param args "exhaustive" to check every float angle, and optionally a layout
+	 *             file to check instead of the default layout
+	 * @throws IOException if the layout file can't be read
+	 */
+	public static void main(String[] args) throws IOException {
+		boolean exhaustive = false;
+		WheelLayout layout = WheelLayout.DEFAULT;
+		for (String arg : args) {
+			if (arg.equals("exhaustive"))
+				exhaustive = true;
+			else
+				layout = WheelLayout.load(new File(arg));
+		}
+		long start = System.nanoTime();
+		SpotTable table = new SpotTable(layout);
+		long mismatches = table.validate(exhaustive);
+		System.out.printf("%s, %s check: %d mismatches, %d of %d buckets fall back, %.2f s%n", layout,
+				exhaustive ? "exhaustive" : "quick", mismatches, table.getFallbackBuckets(), table.spots.length,
+				(System.nanoTime() - start) / 1e9);
+		if (mismatches > 0)
+			System.exit(1);
+	}
+
+}
@@ -0,0 +1,71 @@
+package com.martipops.beatthebird;
+
+/**
+ * Class StageTable:
+ * The game on screen as a {@link BettingTable}. Bets move coins between the
+ * player's inventory and the bet spots like clicks do, so they are logged and
+ * journaled the same way, and spins turn the wheel actor. Amounts must be whole
+ * coins of {@link Inventory#COIN_VALUE}.
+ */
+public class StageTable implements BettingTable {
+
+	@Override
+	public int getBalance() {
+		return GameMain.playerInventory.total;
+	}
+
+	@Override
+	public void setBalance(int balance) {
+		GameMain.resetBalance(balance);
+	}
+
+	@Override
+	public WheelLayout getLayout() {
+		return GameMain.wheel.getSpotTable().getLayout();
+	}
+
+	@Override
+	public int getBet(int spot) {
+		BetSpot s = GameMain.bets.get(spot);
+		return s == null ? 0 : s.total;
+	}
+
+	@Override
+	public int getBetTotal() {
+		return GameMain.bets.getTotal();
+	}
+
+	@Override
+	public boolean placeBet(int spot, int amount) {
+		return GameMain.placeBet(spot, amount);
+	}
+
+	@Override
+	public boolean spin() {
+		if (GameMain.wheel.isSpinning())
+			return false;
+		GameMain.wheel.spin();
+		return GameMain.wheel.isSpinning();
+	}
+
+	@Override
+	public boolean finishSpin() {
+		return GameMain.wheel.finishSpin();
+	}
+
+	@Override
+	public boolean isSpinning() {
+		return GameMain.wheel.isSpinning();
+	}
+
+	@Override
+	public int getLastSpot() {
+		return GameMain.lastSpot;
+	}
+
+	@Override
+	public long getRounds() {
+		return GameMain.rounds;
+	}
+
+}
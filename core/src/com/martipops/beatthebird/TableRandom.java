@@ -0,0 +1,117 @@
+package com.martipops.beatthebird;
+
+/**
+ * Class TableRandom:
+ * A seedable, splittable random generator for game outcomes (SplitMix64). Every
+ * table or wheel gets its own, so outcomes never share a sequence with
+ * cosmetic randomness like coin placement, and a whole session can be replayed
+ * from its seed. The sequence only depends on the seed, so it is the same on
+ * every JVM.
+ *
+ * Not thread safe. Use {@link #split()} to give another table or thread its
+ * own generator.
+ */
+public class TableRandom {
+
+	/**
+	 * The amount the state advances by each step, the odd fractional part of the
+	 * golden ratio
+	 */
+	private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+
+	/**
+	 * The seed this generator started from
+	 */
+	private final long initialSeed;
+	/**
+	 * The current state
+	 */
+	private long seed;
+
+	/**
+	 * Constructs a generator.
+	 *
+	 * @param seed the seed
+	 */
+	public TableRandom(long seed) {
+		this.initialSeed = seed;
+		this.seed = seed;
+	}
+
+	/**
+	 * @return the next random long
+	 */
+	public long nextLong() {
+		return mix64(seed += GOLDEN_GAMMA);
+	}
+
+	/**
+	 * @return the next random int
+	 */
+	public int nextInt() {
+		return mix32(seed += GOLDEN_GAMMA);
+	}
+
+	/**
+	 * @param bound the upper bound, exclusive, must be positive
+	 * @return a uniformly distributed int from 0 to bound - 1
+	 */
+	public int nextInt(int bound) {
+		if (bound <= 0)
+			throw new IllegalArgumentException("bound must be positive");
+		int r = nextInt();
+		int m = bound - 1;
+		if ((bound & m) == 0)
+			return r & m;
+		// reject the values that would make the result biased
+		for (int u = r >>> 1; u + m - (r = u % bound) < 0; u = nextInt() >>> 1)
+			;
+		return r;
+	}
+
+	/**
+	 * @return a uniformly distributed float from 0 inclusive to 1 exclusive
+	 */
+	public float nextFloat() {
+		return (nextInt() >>> 8) * 0x1.0p-24f;
+	}
+
+	/**
+	 * @return a spin speed like {@link WheelActor#spin()} uses, from
+	 *         {@link WheelPhysics#MIN_SPIN_SPEED} to
+	 *         {@link WheelPhysics#MAX_SPIN_SPEED}
+	 */
+	public int nextSpinSpeed() {
+		return WheelPhysics.MIN_SPIN_SPEED + nextInt(WheelPhysics.MAX_SPIN_SPEED - WheelPhysics.MIN_SPIN_SPEED + 1);
+	}
+
+	/**
+	 * Creates a new generator seeded from this one. The new generator's sequence
+	 * is independent of this one's, and can be recreated from its
+	 * {@link #getSeed() seed}.
+	 *
+	 * @return the new generator
+	 */
+	public TableRandom split() {
+		return new TableRandom(nextLong());
+	}
+
+	/**
+	 * @return the seed this generator started from
+	 */
+	public long getSeed() {
+		return initialSeed;
+	}
+
+	private static long mix64(long z) {
+		z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+		z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+		return z ^ (z >>> 31);
+	}
+
+	private static int mix32(long z) {
+		z = (z ^ (z >>> 33)) * 0x62a9d9ed799705f5L;
+		return (int) (((z ^ (z >>> 28)) * 0xcb24d0a5c88c35b3L) >>> 32);
+	}
+
+}
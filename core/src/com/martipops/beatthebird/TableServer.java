@@ -0,0 +1,340 @@
+package com.martipops.beatthebird;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Class TableServer:
+ * Hosts many independent {@link GameTable}s on a small pool of threads. The
+ * tables are split into shards, one per thread, and every tick each shard runs
+ * the tasks queued for its tables and steps all of its wheels by a fixed step.
+ * A table only ever runs on its shard's thread, so tables need no locking and
+ * share no state.
+ *
+ * A task or step that throws only takes its own table out of play: the table
+ * is quarantined and reported to the {@link QuarantineListener}, and the rest
+ * of the shard keeps ticking.
+ */
+public class TableServer {
+
+	/**
+	 * Interface for work to run on a table's own thread
+	 */
+	public interface TableTask {
+		/**
+		 * @param table the table to run on
+		 */
+		void run(GameTable table);
+	}
+
+	/**
+	 * Listener interface for tables taken out of play
+	 */
+	public interface QuarantineListener {
+		/**
+		 * Called on the table's shard thread after a task or step on it threw.
+		 *
+		 * @param table the table, which no longer ticks
+		 * @param cause what it threw
+		 */
+		void quarantined(GameTable table, RuntimeException cause);
+	}
+
+	/**
+	 * Class Shard:
+	 * The tables owned by one thread and the tasks queued for them.
+	 */
+	private class Shard implements Runnable {
+		/**
+		 * The tables owned by this shard
+		 */
+		final List<GameTable> tables = new ArrayList<GameTable>();
+		/**
+		 * Tables opened from other threads, added on the next tick
+		 */
+		final ConcurrentLinkedQueue<GameTable> opened = new ConcurrentLinkedQueue<GameTable>();
+		/**
+		 * Tasks queued from other threads, run on the next tick
+		 */
+		final ConcurrentLinkedQueue<Runnable> tasks = new ConcurrentLinkedQueue<Runnable>();
+		/**
+		 * Tables taken out of play after a task or step threw
+		 */
+		final Set<GameTable> quarantined = Collections.newSetFromMap(new ConcurrentHashMap<GameTable, Boolean>());
+		/**
+		 * The longest tick so far in nanoseconds
+		 */
+		volatile long maxTickNanos;
+		/**
+		 * The number of rounds settled by this shard
+		 */
+		volatile long rounds;
+
+		@Override
+		public void run() {
+			long start = System.nanoTime();
+			GameTable table;
+			while ((table = opened.poll()) != null)
+				tables.add(table);
+			Runnable task;
+			while ((task = tasks.poll()) != null)
+				task.run();
+			long settled = 0;
+			for (int i = 0; i < tables.size(); i++) {
+				table = tables.get(i);
+				try {
+					if (table.step())
+						settled++;
+				} catch (RuntimeException e) {
+					quarantine(table, e);
+					i--;
+				}
+			}
+			rounds += settled;
+			long time = System.nanoTime() - start;
+			if (time > maxTickNanos)
+				maxTickNanos = time;
+		}
+
+		/**
+		 * Runs a task on one of this shard's tables, quarantining the table if it
+		 * throws. Tasks for a quarantined table are dropped.
+		 *
+		 * @param table the table
+		 * @param task  the task
+		 */
+		void run(GameTable table, TableTask task) {
+			if (quarantined.contains(table))
+				return;
+			try {
+				task.run(table);
+			} catch (RuntimeException e) {
+				quarantine(table, e);
+			}
+		}
+
+		/**
+		 * Stops ticking a table and reports why.
+		 *
+		 * @param table the table that failed
+		 * @param e     what it threw
+		 */
+		void quarantine(GameTable table, RuntimeException e) {
+			tables.remove(table);
+			quarantined.add(table);
+			QuarantineListener listener = quarantineListener;
+			if (listener != null) {
+				try {
+					listener.quarantined(table, e);
+				} catch (RuntimeException ignored) {
+					// a failing listener must not stop the rest of the shard
+				}
+			}
+		}
+	}
+
+	/**
+	 * Decides spins for the fixed step every wheel is advanced by each tick
+	 */
+	private final SpinSolver solver;
+	/**
+	 * The shards, one per thread
+	 */
+	private final Shard[] shards;
+	/**
+	 * The threads the shards tick on
+	 */
+	private final ScheduledExecutorService executor;
+	/**
+	 * The id of the next table to open
+	 */
+	private final AtomicInteger nextId = new AtomicInteger();
+	/**
+	 * Told about every quarantined table, or null
+	 */
+	private volatile QuarantineListener quarantineListener;
+
+	/**
+	 * Constructs a server with one thread per core, ticking at 60 Hz.
+	 */
+	public TableServer() {
+		this(Runtime.getRuntime().availableProcessors(), WheelPhysics.DEFAULT_STEP);
+	}
+
+	/**
+	 * Constructs a server and starts ticking.
+	 *
+	 * @param threads the number of threads to run tables on
+	 * @param step    the fixed step, which is also the time between ticks
+	 */
+	public TableServer(int threads, float step) {
+		this.solver = step == WheelPhysics.DEFAULT_STEP ? SpinSolver.DEFAULT : new SpinSolver(step);
+		shards = new Shard[Math.max(1, threads)];
+		final AtomicInteger threadId = new AtomicInteger();
+		executor = Executors.newScheduledThreadPool(shards.length, new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "table-shard-" + threadId.getAndIncrement());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		long period = (long) (step * 1e9);
+		for (int i = 0; i < shards.length; i++) {
+			shards[i] = new Shard();
+			executor.scheduleAtFixedRate(shards[i], period, period, TimeUnit.NANOSECONDS);
+		}
+	}
+
+	/**
+	 * Opens a new table. The table starts ticking on its shard's next tick.
+	 *
+	 * @param balance the player's starting balance
+	 * @param seed    the seed for the table's spin speeds
+	 * @return the new table
+	 */
+	public GameTable openTable(int balance, long seed) {
+		GameTable table = new GameTable(nextId.getAndIncrement(), balance, new TableRandom(seed), solver);
+		shardOf(table).opened.add(table);
+		return table;
+	}
+
+	/**
+	 * Opens a new table that bets from a player's balance in a shared wallet, so
+	 * the player can sit at tables on different shards at once.
+	 *
+	 * @param wallet holds the player's balance
+	 * @param player the id of the player in the wallet
+	 * @param seed   the seed for the table's spin speeds
+	 * @return the new table
+	 */
+	public GameTable openTable(SharedWallet wallet, int player, long seed) {
+		GameTable table = new GameTable(nextId.getAndIncrement(), wallet, player, new TableRandom(seed), solver);
+		shardOf(table).opened.add(table);
+		return table;
+	}
+
+	/**
+	 * Queues a task to run on a table's own thread before its next step.
+	 *
+	 * @param table the table to run the task on
+	 * @param task  the task
+	 */
+	public void execute(final GameTable table, final TableTask task) {
+		final Shard shard = shardOf(table);
+		shard.tasks.add(new Runnable() {
+			@Override
+			public void run() {
+				shard.run(table, task);
+			}
+		});
+	}
+
+	/**
+	 * @param table a table opened by this server
+	 * @return the shard that owns the table
+	 */
+	private Shard shardOf(GameTable table) {
+		return shards[table.getId() % shards.length];
+	}
+
+	/**
+	 * @return the number of rounds settled on all tables
+	 */
+	public long getRounds() {
+		long rounds = 0;
+		for (Shard shard : shards)
+			rounds += shard.rounds;
+		return rounds;
+	}
+
+	/**
+	 * Sets the listener told about every table taken out of play from now on.
+	 *
+	 * @param listener the listener, or null for none
+	 */
+	public void setQuarantineListener(QuarantineListener listener) {
+		this.quarantineListener = listener;
+	}
+
+	/**
+	 * @return the tables taken out of play because a task or step threw
+	 */
+	public List<GameTable> getQuarantined() {
+		List<GameTable> quarantined = new ArrayList<GameTable>();
+		for (Shard shard : shards)
+			quarantined.addAll(shard.quarantined);
+		return quarantined;
+	}
+
+	/**
+	 * @return the longest tick of any shard in nanoseconds
+	 */
+	public long getMaxTickNanos() {
+		long max = 0;
+		for (Shard shard : shards)
+			max = Math.max(max, shard.maxTickNanos);
+		return max;
+	}
+
+	/**
+	 * Stops ticking all tables.
+	 */
+	public void shutdown() {
+		executor.shutdown();
+	}
+
+	/**
+	 * Runs a load test from the command line. Every table bets on the next spot
+	 * and spins again as soon as its last round is settled.
+	 *
+	 * @param args optionally the number of tables and the seconds to run for
+	 * @throws InterruptedException if interrupted while waiting
+	 */
+	public static void main(String[] args) throws InterruptedException {
+		int count = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+		int seconds = args.length > 1 ? Integer.parseInt(args[1]) : 30;
+		final TableServer server = new TableServer();
+		server.setQuarantineListener(new QuarantineListener() {
+			@Override
+			public void quarantined(GameTable table, RuntimeException cause) {
+				System.err.println("Table " + table.getId() + " was quarantined after round " + table.getRounds());
+				cause.printStackTrace();
+			}
+		});
+		TableRandom seeds = new TableRandom(System.nanoTime());
+		final TableTask playRound = new TableTask() {
+			@Override
+			public void run(GameTable table) {
+				// rotate through the bet spots, the bet is skipped once the balance runs out
+				table.placeBet(GameInterface.BET_SPOTS[(int) (table.getRounds() % GameInterface.BET_SPOTS.length)], 10);
+				table.spin();
+			}
+		};
+		GameTable.Listener again = new GameTable.Listener() {
+			@Override
+			public void settled(GameTable table, int spot, long winnings) {
+				playRound.run(table);
+			}
+		};
+		for (int i = 0; i < count; i++) {
+			GameTable table = server.openTable(1000, seeds.nextLong());
+			table.setListener(again);
+			server.execute(table, playRound);
+		}
+		Thread.sleep(seconds * 1000L);
+		server.shutdown();
+		System.out.printf("%d tables, %d rounds in %d s, longest tick %.2f ms of %.2f ms%n", count,
+				server.getRounds(), seconds, server.getMaxTickNanos() / 1e6, server.solver.getDelta() * 1e3);
+	}
+
+}
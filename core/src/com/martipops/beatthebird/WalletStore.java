@@ -0,0 +1,647 @@
+package com.martipops.beatthebird;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+
+/**
+ * Class WalletStore:
+ * Keeps the balance of every player on disk as a snapshot plus a journal.
+ *
+ * The snapshot is the hash table of balances itself, written as two int
+ * arrays, so opening a store only reads the arrays back in bulk instead of
+ * inserting every player again. Every change after the snapshot is one 12 byte
+ * record in the journal, which is replayed on top of it. Neither file is ever
+ * memory mapped: a mapping stays until the buffer is garbage collected, and
+ * while it does some systems refuse to replace or truncate the file.
+ *
+ * {@link #set(int, int)} only updates the table and queues the change; a
+ * background thread writes the queued changes to the journal, syncs it and,
+ * once the journal has grown large, writes a new snapshot from its own copy of
+ * the table. The thread that calls set never touches the disk, and a failed
+ * write never throws on it: set reports it by returning false.
+ *
+ * Not thread safe: one thread reads and sets balances, the background thread
+ * only sees the queued changes.
+ */
+public class WalletStore implements Closeable {
+
+	/**
+	 * The first 4 bytes of every snapshot, "BTW1"
+	 */
+	static final int MAGIC = 0x42545731;
+
+	/**
+	 * The size of the snapshot header
+	 */
+	static final int HEADER_SIZE = 16;
+
+	/**
+	 * The size of a journal record
+	 */
+	static final int RECORD_SIZE = 12;
+
+	/**
+	 * The number of journal records at which a new snapshot is written
+	 */
+	static final int COMPACT_RECORDS = 1 << 20;
+
+	/**
+	 * The size of the buffers the files are read and written through
+	 */
+	static final int BUFFER_SIZE = 1 << 16;
+
+	/**
+	 * Listener interface for snapshots that could not be written
+	 */
+	public interface Listener {
+		/**
+		 * Called on the background thread when a snapshot could not be written. The
+		 * store carries on with the journal and tries again later.
+		 *
+		 * @param cause why the snapshot failed
+		 */
+		void snapshotFailed(IOException cause);
+	}
+
+	/**
+	 * Class Balances:
+	 * A hash table from player id to balance with open addressing, kept in two
+	 * arrays so it can be written and read back in bulk.
+	 */
+	static class Balances {
+		/**
+		 * The key of an empty slot. Player ids are never negative
+		 */
+		static final int EMPTY = -1;
+
+		int[] keys;
+		int[] values;
+		int size;
+
+		/**
+		 * Constructs a table with room for a number of players.
+		 */
+		Balances(int capacity) {
+			int slots = Integer.highestOneBit(Math.max(16, capacity * 2 - 1)) << 1;
+			keys = new int[slots];
+			values = new int[slots];
+			Arrays.fill(keys, EMPTY);
+		}
+
+		/**
+		 * @return the slot of a player, or the empty slot it would go in
+		 */
+		int slot(int id) {
+			int mask = keys.length - 1;
+			int i = (id * 0x9e3779b9) >>> 1 & mask;
+			while (keys[i] != id && keys[i] != EMPTY)
+				i = (i + 1) & mask;
+			return i;
+		}
+
+		int get(int id, int fallback) {
+			int i = slot(id);
+			return keys[i] == id ? values[i] : fallback;
+		}
+
+		boolean contains(int id) {
+			return keys[slot(id)] == id;
+		}
+
+		void put(int id, int value) {
+			int i = slot(id);
+			if (keys[i] == EMPTY) {
+				if ((size + 1) * 2 > keys.length) {
+					grow();
+					i = slot(id);
+				}
+				keys[i] = id;
+				size++;
+			}
+			values[i] = value;
+		}
+
+		private void grow() {
+			int[] oldKeys = keys, oldValues = values;
+			keys = new int[oldKeys.length * 2];
+			values = new int[oldKeys.length * 2];
+			Arrays.fill(keys, EMPTY);
+			for (int i = 0; i < oldKeys.length; i++) {
+				if (oldKeys[i] != EMPTY) {
+					int j = slot(oldKeys[i]);
+					keys[j] = oldKeys[i];
+					values[j] = oldValues[i];
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * The snapshot and journal files
+	 */
+	private final File snapshotFile, journalFile;
+	/**
+	 * The journal file, open for appending
+	 */
+	private final RandomAccessFile journal;
+	/**
+	 * The balances read and set by the owning thread
+	 */
+	private final Balances balances;
+	/**
+	 * The balances as the background thread last wrote them, used for snapshots.
+	 * Only touched by the background thread
+	 */
+	private Balances durable;
+	/**
+	 * The background thread
+	 */
+	private final Thread writer;
+	/**
+	 * Guards the queue and the counters below
+	 */
+	private final Object lock = new Object();
+	/**
+	 * Changes waiting to be written, player id and balance pairs
+	 */
+	private int[] queue = new int[256];
+	/**
+	 * The number of ints in the queue
+	 */
+	private int queued;
+	/**
+	 * The number of changes set and the number written
+	 */
+	private long changes, written;
+	/**
+	 * The number of records in the journal
+	 */
+	private long journalRecords;
+	/**
+	 * The number of snapshots written since the store was opened
+	 */
+	private int snapshots;
+	/**
+	 * The number of snapshots that could not be written
+	 */
+	private int snapshotFailures;
+	/**
+	 * Told about every snapshot that could not be written, or null
+	 */
+	private volatile Listener listener;
+	/**
+	 * The error that stopped the background thread, or null
+	 */
+	private IOException failure;
+	/**
+	 * True once the store is closed
+	 */
+	private boolean closed;
+
+	/**
+	 * Opens the store in a directory, creating it if needed, and starts the
+	 * background thread.
+	 *
+	 * @param directory the directory holding wallet.snapshot and wallet.journal
+	 * @throws IOException if the files can't be read
+	 */
+	public WalletStore(File directory) throws IOException {
+		if (!directory.isDirectory() && !directory.mkdirs())
+			throw new IOException("Could not create " + directory);
+		snapshotFile = new File(directory, "wallet.snapshot");
+		journalFile = new File(directory, "wallet.journal");
+		balances = readSnapshot(snapshotFile);
+		journal = new RandomAccessFile(journalFile, "rw");
+		try {
+			journalRecords = replayJournal(balances);
+			journal.getChannel().truncate(journalRecords * RECORD_SIZE);
+			journal.getChannel().position(journalRecords * RECORD_SIZE);
+		} catch (IOException e) {
+			journal.close();
+			throw e;
+		}
+		writer = new Thread(new Writer(), "WalletStore " + directory.getName());
+		writer.setDaemon(true);
+		writer.start();
+	}
+
+	/**
+	 * Reads a snapshot and copies its table back.
+	 */
+	private static Balances readSnapshot(File file) throws IOException {
+		if (!file.exists())
+			return new Balances(0);
+		try (RandomAccessFile in = new RandomAccessFile(file, "r")) {
+			FileChannel channel = in.getChannel();
+			if (channel.size() < HEADER_SIZE)
+				throw new IOException("Not a wallet snapshot: " + file);
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			buffer.limit(HEADER_SIZE);
+			readFully(channel, buffer, 0);
+			if (buffer.getInt(0) != MAGIC)
+				throw new IOException("Not a wallet snapshot: " + file);
+			int slots = buffer.getInt(4);
+			if (Integer.bitCount(slots) != 1 || channel.size() != HEADER_SIZE + 8L * slots)
+				throw new IOException("Damaged wallet snapshot: " + file);
+			Balances table = new Balances(0);
+			table.keys = new int[slots];
+			table.values = new int[slots];
+			table.size = buffer.getInt(8);
+			readInts(channel, buffer, HEADER_SIZE, table.keys);
+			readInts(channel, buffer, HEADER_SIZE + 4L * slots, table.values);
+			return table;
+		}
+	}
+
+	/**
+	 * Fills a buffer from a channel, starting at a position in the file. Leaves
+	 * the channel's own position alone.
+	 */
+	private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+		while (buffer.hasRemaining()) {
+			int read = channel.read(buffer, position);
+			if (read < 0)
+				throw new EOFException();
+			position += read;
+		}
+	}
+
+	/**
+	 * Reads an int array from a channel through a buffer, starting at a position
+	 * in the file.
+	 */
+	private static void readInts(FileChannel channel, ByteBuffer buffer, long position, int[] ints)
+			throws IOException {
+		for (int i = 0; i < ints.length;) {
+			buffer.clear();
+			buffer.limit(Math.min(buffer.capacity(), (ints.length - i) * 4));
+			readFully(channel, buffer, position);
+			buffer.flip();
+			int count = buffer.remaining() / 4;
+			buffer.asIntBuffer().get(ints, i, count);
+			position += count * 4L;
+			i += count;
+		}
+	}
+
+	/**
+	 * Applies every whole record of the journal to a table.
+	 *
+	 * @return the number of whole records, anything after them is torn
+	 */
+	private long replayJournal(Balances table) throws IOException {
+		FileChannel channel = journal.getChannel();
+		long records = channel.size() / RECORD_SIZE;
+		ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE / RECORD_SIZE * RECORD_SIZE);
+		buffer.limit(0);
+		for (long r = 0; r < records; r++) {
+			if (!buffer.hasRemaining()) {
+				buffer.clear();
+				buffer.limit((int) Math.min(buffer.capacity(), (records - r) * RECORD_SIZE));
+				readFully(channel, buffer, r * RECORD_SIZE);
+				buffer.flip();
+			}
+			int id = buffer.getInt();
+			int balance = buffer.getInt();
+			if (id < 0 || buffer.getInt() != RoundJournal.check(r, 1, id, balance)) {
+				records = r;
+				break;
+			}
+			table.put(id, balance);
+		}
+		return records;
+	}
+
+	/**
+	 * @param player the id of a player
+	 * @param fallback the balance returned for an unknown player
+	 * @return the player's balance
+	 */
+	public int get(int player, int fallback) {
+		return balances.get(player, fallback);
+	}
+
+	/**
+	 * @param player the id of a player
+	 * @return true if the player has a balance
+	 */
+	public boolean contains(int player) {
+		return balances.contains(player);
+	}
+
+	/**
+	 * @return the number of players
+	 */
+	public int size() {
+		return balances.size;
+	}
+
+	/**
+	 * Sets a player's balance and queues it to be written. If the background
+	 * thread failed, the balance is still set but never written.
+	 *
+	 * @param player  the id of the player, not negative
+	 * @param balance the new balance
+	 * @return false if the background thread failed, see {@link #getFailure()}
+	 * @throws IllegalStateException if the store is closed
+	 */
+	public boolean set(int player, int balance) {
+		if (player < 0)
+			throw new IllegalArgumentException("Player ids can't be negative");
+		balances.put(player, balance);
+		synchronized (lock) {
+			if (closed)
+				throw new IllegalStateException("Wallet store is closed");
+			if (failure != null)
+				return false;
+			if (queued + 2 > queue.length)
+				queue = Arrays.copyOf(queue, queue.length * 2);
+			queue[queued++] = player;
+			queue[queued++] = balance;
+			changes++;
+			// the writer only waits while the queue is empty
+			if (queued == 2)
+				lock.notifyAll();
+		}
+		return true;
+	}
+
+	/**
+	 * Waits until every change set so far is on disk.
+	 *
+	 * @throws IOException if the background thread failed
+	 */
+	public void flush() throws IOException {
+		synchronized (lock) {
+			while (written < changes && failure == null && writer.isAlive()) {
+				try {
+					lock.wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+			if (failure != null)
+				throw failure;
+		}
+	}
+
+	/**
+	 * @return the error that stopped the background thread, or null if it is
+	 *         still writing
+	 */
+	public IOException getFailure() {
+		synchronized (lock) {
+			return failure;
+		}
+	}
+
+	/**
+	 * Sets the listener told about every snapshot that can't be written from now
+	 * on.
+	 *
+	 * @param listener the listener, or null for none
+	 */
+	public void setListener(Listener listener) {
+		this.listener = listener;
+	}
+
+	/**
+	 * @return the number of snapshots that could not be written since the store
+	 *         was opened
+	 */
+	public int getSnapshotFailures() {
+		synchronized (lock) {
+			return snapshotFailures;
+		}
+	}
+
+	/**
+	 * @return the number of snapshots written since the store was opened
+	 */
+	public int getSnapshots() {
+		synchronized (lock) {
+			return snapshots;
+		}
+	}
+
+	/**
+	 * Writes every queued change and a new snapshot, stops the background thread
+	 * and closes the journal.
+	 */
+	@Override
+	public void close() throws IOException {
+		synchronized (lock) {
+			if (closed)
+				return;
+			closed = true;
+			lock.notifyAll();
+		}
+		try {
+			writer.join();
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+		}
+		journal.close();
+		if (failure != null)
+			throw failure;
+	}
+
+	/**
+	 * Class Writer:
+	 * Drains the queue into the journal and compacts it into a new snapshot when
+	 * it grows large.
+	 */
+	private class Writer implements Runnable {
+		private int[] batch = new int[256];
+		private ByteBuffer bytes = ByteBuffer.allocateDirect(256 / 2 * RECORD_SIZE);
+		/**
+		 * The number of journal records before which no snapshot is tried, after
+		 * one failed
+		 */
+		private long retryAt;
+
+		@Override
+		public void run() {
+			try {
+				// build the copy for snapshots here rather than slowing down opening
+				durable = readSnapshot(snapshotFile);
+				replayJournal(durable);
+				while (true) {
+					int count;
+					long upTo;
+					synchronized (lock) {
+						while (queued == 0 && !closed)
+							lock.wait();
+						if (queued == 0)
+							break;
+						int[] swap = batch.length >= queue.length ? batch : new int[queue.length];
+						batch = queue;
+						queue = swap;
+						count = queued;
+						queued = 0;
+						upTo = changes;
+					}
+					write(count);
+					synchronized (lock) {
+						written = upTo;
+						lock.notifyAll();
+					}
+				}
+				// leave a fresh snapshot behind, so the next start only has to read it
+				if (journalRecords > 0)
+					tryCompact();
+			} catch (IOException e) {
+				synchronized (lock) {
+					failure = e;
+					lock.notifyAll();
+				}
+			} catch (InterruptedException e) {
+				// closing
+			}
+		}
+
+		/**
+		 * Appends a batch to the journal and syncs it once.
+		 */
+		private void write(int count) throws IOException {
+			if (bytes.capacity() < count / 2 * RECORD_SIZE)
+				bytes = ByteBuffer.allocateDirect(count / 2 * RECORD_SIZE);
+			bytes.clear();
+			for (int i = 0; i < count; i += 2) {
+				int id = batch[i], balance = batch[i + 1];
+				bytes.putInt(id).putInt(balance).putInt(RoundJournal.check(journalRecords++, 1, id, balance));
+				durable.put(id, balance);
+			}
+			bytes.flip();
+			FileChannel channel = journal.getChannel();
+			while (bytes.hasRemaining())
+				channel.write(bytes);
+			channel.force(false);
+			if (journalRecords >= Math.max(COMPACT_RECORDS, durable.size) && journalRecords >= retryAt)
+				tryCompact();
+		}
+
+		/**
+		 * Compacts the journal, but carries on without a new snapshot if it can't
+		 * be written. The journal still holds every change, so nothing is lost, and
+		 * the next try waits until it has grown by another {@link #COMPACT_RECORDS}.
+		 */
+		private void tryCompact() {
+			try {
+				compact();
+				retryAt = 0;
+			} catch (IOException e) {
+				new File(snapshotFile.getPath() + ".tmp").delete();
+				retryAt = journalRecords + COMPACT_RECORDS;
+				synchronized (lock) {
+					snapshotFailures++;
+				}
+				Listener listener = WalletStore.this.listener;
+				if (listener != null) {
+					try {
+						listener.snapshotFailed(e);
+					} catch (RuntimeException ignored) {
+						// a failing listener must not stop the writer
+					}
+				}
+			}
+		}
+
+		/**
+		 * Writes the durable table as a new snapshot, then empties the journal.
+		 */
+		private void compact() throws IOException {
+			File temp = new File(snapshotFile.getPath() + ".tmp");
+			try (RandomAccessFile out = new RandomAccessFile(temp, "rw")) {
+				out.setLength(0);
+				FileChannel channel = out.getChannel();
+				ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+				buffer.putInt(MAGIC).putInt(durable.keys.length).putInt(durable.size).putInt(0);
+				buffer.flip();
+				writeFully(channel, buffer);
+				writeInts(channel, buffer, durable.keys);
+				writeInts(channel, buffer, durable.values);
+				channel.force(true);
+			}
+			Files.move(temp.toPath(), snapshotFile.toPath(), StandardCopyOption.REPLACE_EXISTING,
+					StandardCopyOption.ATOMIC_MOVE);
+			// the records are whole balances, so replaying any that survive a crash
+			// here on top of the new snapshot changes nothing
+			journal.getChannel().truncate(0);
+			journal.getChannel().position(0);
+			journalRecords = 0;
+			synchronized (lock) {
+				snapshots++;
+			}
+		}
+
+		/**
+		 * Writes an int array to a channel through a buffer.
+		 */
+		private void writeInts(FileChannel channel, ByteBuffer buffer, int[] ints) throws IOException {
+			for (int i = 0; i < ints.length;) {
+				buffer.clear();
+				int count = Math.min(buffer.capacity() / 4, ints.length - i);
+				buffer.asIntBuffer().put(ints, i, count);
+				buffer.limit(count * 4);
+				writeFully(channel, buffer);
+				i += count;
+			}
+		}
+
+		/**
+		 * Writes what is left of a buffer to a channel.
+		 */
+		private void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+			while (buffer.hasRemaining())
+				channel.write(buffer);
+		}
+	}
+
+	/**
+	 * Fills a store with players, closes it and times opening it again.
+	 *
+	 * @param args the number of players, two million by default, and the
+	 *             directory of the store
+	 * @throws IOException if the store can't be written
+	 */
+	public static void main(String[] args) throws IOException {
+		int players = args.length > 0 ? Integer.parseInt(args[0]) : 2000000;
+		File directory = args.length > 1 ? new File(args[1])
+				: Files.createTempDirectory("wallet").toFile();
+		TableRandom random = new TableRandom(players);
+		long start = System.nanoTime();
+		WalletStore store = new WalletStore(directory);
+		for (int i = 0; i < players; i++)
+			store.set(i, random.nextInt(100000));
+		long set = System.nanoTime();
+		store.close();
+		long closed = System.nanoTime();
+		System.out.printf("Set %d balances in %.1f ms, written in %.1f ms more, %d snapshots%n", players,
+				(set - start) / 1e6, (closed - set) / 1e6, store.getSnapshots());
+
+		start = System.nanoTime();
+		WalletStore reopened = new WalletStore(directory);
+		long opened = System.nanoTime();
+		random = new TableRandom(players);
+		for (int i = 0; i < players; i++) {
+			if (reopened.get(i, -1) != random.nextInt(100000)) {
+				System.out.println("Wrong balance for player " + i);
+				System.exit(1);
+			}
+		}
+		reopened.close();
+		System.out.printf("Opened %d players in %.1f ms%n", reopened.size(), (opened - start) / 1e6);
+	}
+
+}
@@ -2,8 +2,6 @@ package com.martipops.beatthebird;
 
 import com.badlogic.gdx.graphics.g2d.Batch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
-import com.badlogic.gdx.math.MathUtils;
-import com.badlogic.gdx.scenes.scene2d.Actor;
 
 /**
  * Class WheelActor:
@@ -15,6 +13,10 @@ import com.badlogic.gdx.scenes.scene2d.Actor;
  * from spinning, detect which spot the wheel has landed on, and detect
  * collision with other objects.
  * 
+ * The wheel is simulated in fixed steps of {@link WheelPhysics#DEFAULT_STEP}
+ * no matter the frame rate, and drawn between the last two steps, so where the
+ * wheel lands never depends on how fast the game is rendered.
+ * 
  * Also uses GameInterface for usage in {@link #getSpot() getSpot}
  */
 public class WheelActor extends CircleActor implements GameInterface {
@@ -24,18 +26,32 @@ public class WheelActor extends CircleActor implements GameInterface {
 	 */
 	private TextureRegion region;
 	/**
-	 * The speed at which the wheel is rotating
+	 * The spin state of the wheel, shared with headless simulations
+	 */
+	private final WheelPhysics physics = new WheelPhysics();
+	/**
+	 * The generator spin speeds are drawn from, kept apart from cosmetic
+	 * randomness
+	 */
+	private TableRandom random = new TableRandom(System.nanoTime());
+	/**
+	 * Records every spin for replays, or null
 	 */
-	private float rotationSpeed;
+	private SpinLog log;
 	/**
-	 * A boolean value that represents if the wheel is currently spinning
+	 * The longest frame time simulated at once. Longer stalls slow the animation
+	 * down instead of running many steps in one frame, which doesn't change where
+	 * the wheel lands.
 	 */
-	private boolean spinning;
+	private static final float MAX_FRAME_TIME = 0.25f;
 	/**
-	 * The factor by which the rotation speed decreases over time when the wheel is
-	 * spinning
+	 * The frame time not yet simulated
 	 */
-	private float slowdownFactor = 0.99f;
+	private float accumulator;
+	/**
+	 * The rotation of the wheel before the last step, for drawing between steps
+	 */
+	private float previousRotation;
 
 	/**
 	 * Constructs a new WheelActor object with the specified texture region.
@@ -43,7 +59,6 @@ public class WheelActor extends CircleActor implements GameInterface {
 	 * @param textureRegion the texture region of the wheel
 	 */
 	public WheelActor(TextureRegion textureRegion) {
-		this.spinning = false;
 		this.region = textureRegion;
 		setWidth(textureRegion.getRegionWidth());
 		setHeight(textureRegion.getRegionHeight());
@@ -54,8 +69,8 @@ public class WheelActor extends CircleActor implements GameInterface {
 	 * 
 	 * The act method is called every frame that this actor is on a stage.
 	 * 
-	 * The method updates the wheel's rotation if it is spinning. It also decreases
-	 * the rotation speed over time until it stops.
+	 * The method runs as many fixed steps of the wheel as fit in the time elapsed,
+	 * then sets the drawn rotation between the last two steps.
 	 * 
 	 * @param delta the time elapsed since the last frame
 	 */
@@ -63,19 +78,19 @@ public class WheelActor extends CircleActor implements GameInterface {
 	public void act(float delta) {
 		super.act(delta);
 		// Update the wheel's rotation if it is spinning
-		if (spinning) {
-			setRotation(getRotation() + rotationSpeed * delta);
-			// Slow down the rotation speed over time
-			rotationSpeed *= slowdownFactor;
-			// slow it down to a stop when below certain speed
-			if (rotationSpeed < 10.0f) {
-				slowdownFactor -= 0.01f;
-				if (rotationSpeed < 0.2f) {
-					// Stop spinning when the rotation speed is too slow
-					stop();
+		if (physics.isSpinning()) {
+			accumulator = Math.min(accumulator + delta, MAX_FRAME_TIME);
+			while (accumulator >= WheelPhysics.DEFAULT_STEP) {
+				accumulator -= WheelPhysics.DEFAULT_STEP;
+				previousRotation = physics.getRotation();
+				if (physics.step(WheelPhysics.DEFAULT_STEP)) {
+					setRotation(physics.getRotation());
 					GameMain.wheelLanded(getSpot());
+					return;
 				}
 			}
+			float alpha = accumulator / WheelPhysics.DEFAULT_STEP;
+			setRotation(previousRotation + (physics.getRotation() - previousRotation) * alpha);
 		}
 	}
 
@@ -93,22 +108,6 @@ public class WheelActor extends CircleActor implements GameInterface {
 				getScaleY(), getRotation());
 	}
 
-	/**
-	 * Collision Detector
-	 * This is called on collision with other objects
-	 * IN THIS CASE: The object is called when it is clicked by a mouse. it calls
-	 * if the detected actor matches the touch actor mapped to the
-	 * InputProcessor in GameMain
-	 */
-	@Override
-	public Actor hit(float x, float y, boolean touchable) {
-		Actor g = super.hit(x, y, touchable); // use circular hit detections
-		if (g != null && g.equals(GameMain.touchActor)) {
-			this.spin();
-		}
-		return g;
-	}
-
 	/**
 	 * This is called when a player clicks the wheel. It allows for the animation
 	 * process of the wheel to begin with a specified speed.
@@ -116,11 +115,12 @@ public class WheelActor extends CircleActor implements GameInterface {
 	 * @param rotationSpeed the speed at which the wheel should spin
 	 */
 	public void spin(int rotationSpeed) {
-		if (!spinning) {
-			// The wheel is not already spinning, so start spinning it
-			spinning = true;
-			this.rotationSpeed = rotationSpeed;
-			slowdownFactor = 0.99f;
+		if (physics.spin(rotationSpeed)) {
+			if (GameMain.journal != null)
+				GameMain.journal.spin(rotationSpeed);
+			accumulator = 0;
+			previousRotation = physics.getRotation();
+			setRotation(previousRotation);
 		}
 	}
 
@@ -129,17 +129,38 @@ public class WheelActor extends CircleActor implements GameInterface {
 	 * process of the wheel to begin with a random speed.
 	 */
 	public void spin() {
-		int rspeed = MathUtils.random(500, 1000);
+		// only draw a speed for spins that happen, so replays stay in sync
+		if (isSpinning())
+			return;
+		int rspeed = random.nextSpinSpeed();
+		if (log != null)
+			log.spin();
 		spin(rspeed);
 	}
 
+	/**
+	 * Runs the rest of the current spin at once, so the wheel stops exactly where
+	 * it would have, and lands.
+	 *
+	 * @return true if the wheel was spinning and landed
+	 */
+	public boolean finishSpin() {
+		if (!physics.isSpinning())
+			return false;
+		while (!physics.step(WheelPhysics.DEFAULT_STEP))
+			;
+		accumulator = 0;
+		setRotation(physics.getRotation());
+		GameMain.wheelLanded(getSpot());
+		return true;
+	}
+
 	/**
 	 * Accounts for the game logic for when the wheel comes to a stop
 	 */
 	public void stop() {
 		// Stop the wheel from spinning
-		spinning = false;
-		rotationSpeed = 0;
+		physics.stop();
 	}
 
 	/**
@@ -156,13 +177,38 @@ public class WheelActor extends CircleActor implements GameInterface {
 	 */
 
 	public int getSpot() {
-		// get remainder of 360 to determine its relative angle
-		double rotationAngle = getRotation() % 360.0;
-		// determine sector
-		double loc = rotationAngle / SECTOR_ANGLE;
-		// determine which half of the sector
-		int spot = ((loc % 1) < YELLOW_SPOT_THRESHOLD) ? WHEEL_SPOTS[(int) loc] : 1;
-		return spot;
+		return physics.getSpotTable().getSpot(getRotation());
+	}
+
+	/**
+	 * @return the table the wheel lands through
+	 */
+	public SpotTable getSpotTable() {
+		return physics.getSpotTable();
+	}
+
+	/**
+	 * Makes the wheel land through another layout's table from now on.
+	 *
+	 * @param spots the table
+	 * @return true if the table was set, false while the wheel is spinning
+	 */
+	public boolean setSpotTable(SpotTable spots) {
+		return physics.setSpotTable(spots);
+	}
+
+	/**
+	 * @param random the generator spin speeds are drawn from
+	 */
+	public void setRandom(TableRandom random) {
+		this.random = random;
+	}
+
+	/**
+	 * @param log records every spin for replays, or null
+	 */
+	public void setLog(SpinLog log) {
+		this.log = log;
 	}
 
 	/**
@@ -171,7 +217,7 @@ public class WheelActor extends CircleActor implements GameInterface {
 	 * @return true if wheel is spinning
 	 */
 	public boolean isSpinning() {
-		return spinning;
+		return physics.isSpinning();
 	}
 
 }
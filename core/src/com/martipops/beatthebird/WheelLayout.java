@@ -0,0 +1,326 @@
+package com.martipops.beatthebird;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+import java.util.Properties;
+
+/**
+ * Class WheelLayout:
+ * The rules of a wheel: the values of its sectors, the spots a bet can be placed
+ * on and where those are on screen. {@link #DEFAULT} is the wheel from the
+ * {@link GameInterface} constants, and other variants can be loaded from a
+ * properties file without recompiling:
+ *
+ * <pre>
+ * name = classic
+ * # the numbered sectors clockwise, each followed by a yellow spot except the last
+ * sectors = 3, 10, 3, 5, 3, 20, 3, 5, 3, 10, 3, 5, 5
+ * # the value of the yellow spots, 1 if left out
+ * yellow = 1
+ * bets = 1, 3, 5, 10, 20
+ * # the name and the left, bottom, right and top edges of each bet spot
+ * bet.1.name = One
+ * bet.1.bounds = 115, 120, 215, 225
+ * </pre>
+ *
+ * A value is also the multiplier a winning bet on it pays, see
+ * {@link GameTable#payout(int, long)}. A layout is compiled into a
+ * {@link SpotTable} before it is used, so spinning costs the same on any layout.
+ * Layouts never change once built.
+ */
+public class WheelLayout {
+
+	/**
+	 * The highest value a spot can have
+	 */
+	public static final int MAX_SPOT = 100;
+
+	/**
+	 * The layout from the {@link GameInterface} constants
+	 */
+	public static final WheelLayout DEFAULT = new WheelLayout("classic", GameInterface.WHEEL_SPOTS, 1,
+			GameInterface.BET_SPOTS, new String[] { "One", "Three", "Five", "Ten", "Twenty" },
+			new float[] { 115, 120, 215, 225, 225, 120, 325, 225, 335, 120, 435, 225, 445, 120, 545, 225, 555, 120, 655,
+					225 });
+
+	private final String name;
+	/**
+	 * The values of the numbered sectors
+	 */
+	private final int[] sectors;
+	/**
+	 * The value of the yellow spots between the sectors
+	 */
+	private final int yellow;
+	/**
+	 * The share of a sector taken by its number, the rest is yellow
+	 */
+	private final double threshold;
+	/**
+	 * The angle of a sector in degrees
+	 */
+	private final double sectorAngle;
+	/**
+	 * The values a bet can be placed on
+	 */
+	private final int[] betValues;
+	private final String[] betNames;
+	/**
+	 * The left, bottom, right and top edges of each bet spot
+	 */
+	private final float[] betBounds;
+	/**
+	 * Whether a value can be bet on, indexed by value
+	 */
+	private final boolean[] betSpots = new boolean[MAX_SPOT + 1];
+
+	/**
+	 * Constructs a layout.
+	 *
+	 * @param name      a name for the layout
+	 * @param sectors   the values of the numbered sectors
+	 * @param yellow    the value of the yellow spots
+	 * @param betValues the values a bet can be placed on
+	 * @param betNames  the name shown on each bet spot
+	 * @param betBounds the left, bottom, right and top edges of each bet spot
+	 * @throws IllegalArgumentException if the layout can't be played
+	 */
+	public WheelLayout(String name, int[] sectors, int yellow, int[] betValues, String[] betNames, float[] betBounds) {
+		if (sectors.length < 2)
+			throw new IllegalArgumentException("A wheel needs at least 2 sectors");
+		if (betNames.length != betValues.length || betBounds.length != betValues.length * 4)
+			throw new IllegalArgumentException("Every bet spot needs a name and bounds");
+		for (int value : sectors)
+			checkValue(value);
+		checkValue(yellow);
+		for (int i = 0; i < betValues.length; i++) {
+			checkValue(betValues[i]);
+			if (betSpots[betValues[i]])
+				throw new IllegalArgumentException("Bet spot " + betValues[i] + " is listed twice");
+			betSpots[betValues[i]] = true;
+			if (betBounds[i * 4 + 2] <= betBounds[i * 4] || betBounds[i * 4 + 3] <= betBounds[i * 4 + 1])
+				throw new IllegalArgumentException("Bet spot " + betValues[i] + " has no area");
+		}
+		this.name = name;
+		this.sectors = sectors.clone();
+		this.yellow = yellow;
+		this.betValues = betValues.clone();
+		this.betNames = betNames.clone();
+		this.betBounds = betBounds.clone();
+		// the same arithmetic as the GameInterface constants, so the default layout
+		// lands exactly where the constants say
+		double yellowSpots = sectors.length - 1;
+		double numberedSpots = sectors.length;
+		threshold = yellowSpots / (yellowSpots + numberedSpots);
+		sectorAngle = 360.0 / (yellowSpots + (1 - threshold));
+	}
+
+	/**
+	 * Loads a layout from a properties file.
+	 *
+	 * @param file the file
+	 * @return the layout
+	 * @throws IOException              if the file can't be read
+	 * @throws IllegalArgumentException if the layout is missing something or
+	 *                                  can't be played
+	 */
+	public static WheelLayout load(File file) throws IOException {
+		InputStream in = new FileInputStream(file);
+		try {
+			return load(in);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Loads a layout from properties.
+	 *
+	 * @param in the properties, left open
+	 * @return the layout
+	 * @throws IOException              if the properties can't be read
+	 * @throws IllegalArgumentException if the layout is missing something or
+	 *                                  can't be played
+	 */
+	public static WheelLayout load(InputStream in) throws IOException {
+		Properties properties = new Properties();
+		properties.load(in);
+		int[] sectors = parseInts(require(properties, "sectors"));
+		int yellow = Integer.parseInt(properties.getProperty("yellow", "1").trim());
+		int[] betValues = parseInts(require(properties, "bets"));
+		String[] betNames = new String[betValues.length];
+		float[] betBounds = new float[betValues.length * 4];
+		for (int i = 0; i < betValues.length; i++) {
+			String key = "bet." + betValues[i];
+			betNames[i] = properties.getProperty(key + ".name", String.valueOf(betValues[i])).trim();
+			String[] bounds = require(properties, key + ".bounds").split(",");
+			if (bounds.length != 4)
+				throw new IllegalArgumentException(key + ".bounds needs 4 numbers");
+			for (int j = 0; j < 4; j++)
+				betBounds[i * 4 + j] = Float.parseFloat(bounds[j].trim());
+		}
+		return new WheelLayout(properties.getProperty("name", "unnamed").trim(), sectors, yellow, betValues, betNames,
+				betBounds);
+	}
+
+	/**
+	 * Writes the layout in the format {@link #load(InputStream)} reads.
+	 *
+	 * @return the layout as properties
+	 */
+	public String toProperties() {
+		StringBuilder sb = new StringBuilder();
+		sb.append("name = ");
+		escape(name, sb);
+		sb.append("\nsectors = ");
+		join(sectors, sb);
+		sb.append("\nyellow = ").append(yellow).append("\nbets = ");
+		join(betValues, sb);
+		for (int i = 0; i < betValues.length; i++) {
+			sb.append("\nbet.").append(betValues[i]).append(".name = ");
+			escape(betNames[i], sb);
+			sb.append("\nbet.").append(betValues[i]).append(".bounds = ");
+			for (int j = 0; j < 4; j++)
+				sb.append(j == 0 ? "" : ", ").append(betBounds[i * 4 + j]);
+		}
+		return sb.append('\n').toString();
+	}
+
+	/**
+	 * A hash of everything that decides the outcome of a round: the sectors, the
+	 * yellow value and the bet spots. Names and positions on screen are left out.
+	 *
+	 * @return the hash, never 0
+	 */
+	public int getFingerprint() {
+		int hash = (Arrays.hashCode(sectors) * 31 + yellow) * 31 + Arrays.hashCode(betValues);
+		return hash == 0 ? 1 : hash;
+	}
+
+	/**
+	 * Determines the spot for a rotation angle from the sector geometry. See
+	 * {@link WheelActor#getSpot()} for how the wheel is laid out.
+	 *
+	 * @param rotation the rotation of the wheel in degrees
+	 * @return the value of the spot at that rotation
+	 */
+	public int computeSpot(double rotation) {
+		// get remainder of 360 to determine its relative angle
+		double rotationAngle = rotation % 360.0;
+		// determine sector
+		double loc = rotationAngle / sectorAngle;
+		// determine which half of the sector
+		return ((loc % 1) < threshold) ? sectors[(int) loc] : yellow;
+	}
+
+	/**
+	 * @return the name of the layout
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the angle of a sector in degrees
+	 */
+	public double getSectorAngle() {
+		return sectorAngle;
+	}
+
+	/**
+	 * @return the share of a sector taken by its number
+	 */
+	public double getThreshold() {
+		return threshold;
+	}
+
+	/**
+	 * @return the number of spots a bet can be placed on
+	 */
+	public int getBetCount() {
+		return betValues.length;
+	}
+
+	/**
+	 * @param i the index of a bet spot
+	 * @return the value of the bet spot
+	 */
+	public int getBetValue(int i) {
+		return betValues[i];
+	}
+
+	/**
+	 * @param i the index of a bet spot
+	 * @return the name shown on the bet spot
+	 */
+	public String getBetName(int i) {
+		return betNames[i];
+	}
+
+	/**
+	 * @param i    the index of a bet spot
+	 * @param edge 0 to 3 for the left, bottom, right and top edge
+	 * @return the edge of the bet spot on screen
+	 */
+	public float getBetBound(int i, int edge) {
+		return betBounds[i * 4 + edge];
+	}
+
+	/**
+	 * @param value a spot value
+	 * @return true if a bet can be placed on the value
+	 */
+	public boolean isBetSpot(int value) {
+		return value >= 0 && value <= MAX_SPOT && betSpots[value];
+	}
+
+	@Override
+	public String toString() {
+		return name + " (" + sectors.length + " sectors, " + betValues.length + " bet spots)";
+	}
+
+	private static void checkValue(int value) {
+		if (value < 1 || value > MAX_SPOT)
+			throw new IllegalArgumentException("Spot values must be from 1 to " + MAX_SPOT + ": " + value);
+	}
+
+	private static void join(int[] values, StringBuilder sb) {
+		for (int i = 0; i < values.length; i++)
+			sb.append(i == 0 ? "" : ", ").append(values[i]);
+	}
+
+	/**
+	 * Escapes a value so properties read it back unchanged, which are read as
+	 * ISO 8859-1.
+	 */
+	private static void escape(String value, StringBuilder sb) {
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '\\')
+				sb.append("\\\\");
+			else if (c < 0x20 || c > 0x7e)
+				sb.append(String.format("\\u%04x", (int) c));
+			else
+				sb.append(c);
+		}
+	}
+
+	private static String require(Properties properties, String key) {
+		String value = properties.getProperty(key);
+		if (value == null)
+			throw new IllegalArgumentException("The layout has no " + key);
+		return value;
+	}
+
+	private static int[] parseInts(String list) {
+		String[] parts = list.split(",");
+		int[] values = new int[parts.length];
+		for (int i = 0; i < parts.length; i++)
+			values[i] = Integer.parseInt(parts[i].trim());
+		return values;
+	}
+
+}
@@ -0,0 +1,189 @@
+package com.martipops.beatthebird;
+
+/**
+ * Class WheelPhysics:
+ * Holds the spin state of the wheel and integrates it one step at a time. This
+ * class does not depend on libGDX so the same physics can be run by
+ * {@link WheelActor} on a stage or by headless code like
+ * {@link WheelSimulator}.
+ */
+public class WheelPhysics implements GameInterface {
+
+	/**
+	 * The slowdown factor the wheel starts every spin with
+	 */
+	public static final float INITIAL_SLOWDOWN = 0.99f;
+
+	/**
+	 * Below this speed the slowdown factor itself starts to decrease
+	 */
+	public static final float BRAKE_SPEED = 10.0f;
+
+	/**
+	 * The amount the slowdown factor decreases by each step once braking
+	 */
+	public static final float BRAKE_STEP = 0.01f;
+
+	/**
+	 * Below this speed the wheel stops
+	 */
+	public static final float STOP_SPEED = 0.2f;
+
+	/**
+	 * The lowest random speed used by {@link WheelActor#spin()}
+	 */
+	public static final int MIN_SPIN_SPEED = 500;
+
+	/**
+	 * The highest random speed used by {@link WheelActor#spin()}
+	 */
+	public static final int MAX_SPIN_SPEED = 1000;
+
+	/**
+	 * The step the game is capped to on desktop (60 FPS)
+	 */
+	public static final float DEFAULT_STEP = 1 / 60f;
+
+	/**
+	 * The rotation of the wheel in degrees when the current spin started
+	 */
+	private float startRotation;
+	/**
+	 * The degrees travelled since the current spin started
+	 */
+	private float travelled;
+	/**
+	 * The speed at which the wheel is rotating
+	 */
+	private float rotationSpeed;
+	/**
+	 * A boolean value that represents if the wheel is currently spinning
+	 */
+	private boolean spinning;
+	/**
+	 * The factor by which the rotation speed decreases each step
+	 */
+	private float slowdownFactor = INITIAL_SLOWDOWN;
+	/**
+	 * The table the wheel lands through
+	 */
+	private SpotTable spots = SpotTable.DEFAULT;
+
+	/**
+	 * Starts spinning the wheel with the specified speed. Does nothing if the
+	 * wheel is already spinning.
+	 *
+	 * @param rotationSpeed the speed at which the wheel should spin
+	 * @return true if the wheel started spinning
+	 */
+	public boolean spin(int rotationSpeed) {
+		if (spinning)
+			return false;
+		spinning = true;
+		// keep the angle small so float precision doesn't degrade over many spins
+		startRotation %= 360f;
+		travelled = 0;
+		this.rotationSpeed = rotationSpeed;
+		slowdownFactor = INITIAL_SLOWDOWN;
+		return true;
+	}
+
+	/**
+	 * Advances the wheel by one step. The speed decreases by the slowdown factor
+	 * every step, and the slowdown factor decreases once the speed is below
+	 * {@link #BRAKE_SPEED} until the wheel stops.
+	 *
+	 * @param delta the time elapsed for this step
+	 * @return true if the wheel came to a stop during this step
+	 */
+	public boolean step(float delta) {
+		if (!spinning)
+			return false;
+		travelled = travelled + rotationSpeed * delta;
+		rotationSpeed *= slowdownFactor;
+		if (rotationSpeed < BRAKE_SPEED) {
+			slowdownFactor -= BRAKE_STEP;
+			if (rotationSpeed < STOP_SPEED) {
+				stop();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Stops the wheel where it currently is
+	 */
+	public void stop() {
+		spinning = false;
+		startRotation = getRotation();
+		travelled = 0;
+		rotationSpeed = 0;
+	}
+
+	/**
+	 * @return the spot at the wheel's current rotation
+	 */
+	public int getSpot() {
+		return spots.getSpot(getRotation());
+	}
+
+	/**
+	 * @return the table this wheel lands through
+	 */
+	public SpotTable getSpotTable() {
+		return spots;
+	}
+
+	/**
+	 * Makes the wheel land through another layout's table from now on.
+	 *
+	 * @param spots the table
+	 * @return true if the table was set, false while the wheel is spinning
+	 */
+	public boolean setSpotTable(SpotTable spots) {
+		if (spinning)
+			return false;
+		this.spots = spots;
+		return true;
+	}
+
+	/**
+	 * @return the rotation of the wheel in degrees
+	 */
+	public float getRotation() {
+		return startRotation + travelled;
+	}
+
+	/**
+	 * @param rotation the rotation of the wheel in degrees
+	 */
+	public void setRotation(float rotation) {
+		startRotation = rotation;
+		travelled = 0;
+	}
+
+	/**
+	 * @return the degrees travelled since the current spin started
+	 */
+	public float getTravelled() {
+		return travelled;
+	}
+
+	/**
+	 * @return the current speed of the wheel
+	 */
+	public float getRotationSpeed() {
+		return rotationSpeed;
+	}
+
+	/**
+	 * Getter for spinning
+	 *
+	 * @return true if wheel is spinning
+	 */
+	public boolean isSpinning() {
+		return spinning;
+	}
+
+}
@@ -0,0 +1,183 @@
+package com.martipops.beatthebird;
+
+import java.util.Random;
+
+/**
+ * Class WheelSimulator:
+ * Runs Monte Carlo spins of the wheel without a stage or any libGDX classes.
+ * Every spin lands where the same {@link WheelPhysics} stepping as
+ * {@link WheelActor} at a fixed step would stop, looked up through a
+ * {@link SpinSolver}, and the spins are split across all available cores. Each
+ * thread keeps its own wheel angle, random generator and counters, so nothing is
+ * shared until the counts are merged at the end.
+ */
+public class WheelSimulator implements GameInterface {
+
+	/**
+	 * Looks up where each spin stops
+	 */
+	private final SpinSolver solver;
+
+	/**
+	 * The table the spins land through
+	 */
+	private final SpotTable spots;
+
+	/**
+	 * The number of threads to spread the spins across
+	 */
+	private final int threads;
+
+	/**
+	 * Constructs a simulator of the default layout that steps at 60 FPS on every
+	 * available core.
+	 */
+	public WheelSimulator() {
+		this(SpotTable.DEFAULT, WheelPhysics.DEFAULT_STEP, Runtime.getRuntime().availableProcessors());
+	}
+
+	/**
+	 * Constructs a simulator.
+	 *
+	 * @param spots   the table the spins land through
+	 * @param delta   the step each spin is integrated with
+	 * @param threads the number of threads to run spins on
+	 */
+	public WheelSimulator(SpotTable spots, float delta, int threads) {
+		this.solver = delta == WheelPhysics.DEFAULT_STEP ? SpinSolver.DEFAULT : new SpinSolver(delta);
+		this.spots = spots;
+		this.threads = Math.max(1, threads);
+	}
+
+	/**
+	 * Class Result:
+	 * The number of times each spot was landed on.
+	 */
+	public static class Result {
+		/**
+		 * The number of landings indexed by spot value
+		 */
+		final long[] counts = new long[WheelLayout.MAX_SPOT + 1];
+		/**
+		 * The total number of spins
+		 */
+		long spins;
+
+		/**
+		 * @param spot the value of a spot
+		 * @return the number of times the spot was landed on
+		 */
+		public long getCount(int spot) {
+			return spot >= 0 && spot < counts.length ? counts[spot] : 0;
+		}
+
+		/**
+		 * @param spot the value of a spot
+		 * @return the fraction of spins that landed on the spot
+		 */
+		public double getProbability(int spot) {
+			return spins == 0 ? 0 : (double) getCount(spot) / spins;
+		}
+
+		/**
+		 * @return the total number of spins
+		 */
+		public long getSpins() {
+			return spins;
+		}
+
+		/**
+		 * Adds the counts of another result to this one.
+		 *
+		 * @param other the result to add
+		 */
+		void merge(Result other) {
+			for (int i = 0; i < counts.length; i++)
+				counts[i] += other.counts[i];
+			spins += other.spins;
+		}
+
+		@Override
+		public String toString() {
+			StringBuilder sb = new StringBuilder();
+			sb.append("Spins: ").append(spins).append('\n');
+			for (int i = 0; i < counts.length; i++)
+				if (counts[i] > 0)
+					sb.append(String.format("%2d: %12d (%.5f)%n", i, counts[i], getProbability(i)));
+			return sb.toString();
+		}
+	}
+
+	/**
+	 * Spins the wheel a number of times, each with a random speed between
+	 * {@link WheelPhysics#MIN_SPIN_SPEED} and {@link WheelPhysics#MAX_SPIN_SPEED}.
+	 * Like the game, every spin starts where the previous one on the same thread
+	 * stopped.
+	 *
+	 * @param spins the total number of spins
+	 * @param seed  the seed for the random speeds
+	 * @return the merged landing counts
+	 */
+	public Result run(long spins, long seed) {
+		final Result[] results = new Result[threads];
+		Thread[] workers = new Thread[threads];
+		for (int t = 0; t < threads; t++) {
+			final int index = t;
+			final long share = spins / threads + (t < spins % threads ? 1 : 0);
+			final long threadSeed = seed + t;
+			workers[t] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					results[index] = runThread(share, new Random(threadSeed));
+				}
+			}, "wheel-sim-" + t);
+			workers[t].start();
+		}
+		Result total = new Result();
+		for (int t = 0; t < threads; t++) {
+			try {
+				workers[t].join();
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Simulation interrupted", e);
+			}
+			total.merge(results[t]);
+		}
+		return total;
+	}
+
+	/**
+	 * Runs a share of the spins on the calling thread.
+	 *
+	 * @param spins  the number of spins to run
+	 * @param random the random generator owned by this thread
+	 * @return the landing counts of these spins
+	 */
+	private Result runThread(long spins, Random random) {
+		Result result = new Result();
+		float rotation = 0;
+		int range = WheelPhysics.MAX_SPIN_SPEED - WheelPhysics.MIN_SPIN_SPEED + 1;
+		for (long i = 0; i < spins; i++) {
+			rotation = solver.getStopRotation(rotation, WheelPhysics.MIN_SPIN_SPEED + random.nextInt(range));
+			result.counts[spots.getSpot(rotation)]++;
+		}
+		result.spins = spins;
+		return result;
+	}
+
+	/**
+	 * Runs the simulator from the command line.
+	 *
+	 * @param args optionally the number of spins and the seed
+	 */
+	public static void main(String[] args) {
+		long spins = args.length > 0 ? Long.parseLong(args[0]) : 10000000L;
+		long seed = args.length > 1 ? Long.parseLong(args[1]) : System.nanoTime();
+		long start = System.nanoTime();
+		Result result = new WheelSimulator().run(spins, seed);
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.print(result);
+		System.out.printf("%.2f s, %.0f spins/s%n", seconds, spins / seconds);
+	}
+
+}
@@ -0,0 +1,63 @@
+package com.martipops.beatthebird;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.IntBuffer;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.GL20;
+
+/**
+ * Class HeadlessGL:
+ * A GL20 that does nothing, for running the game without a window. It hands
+ * out ids for created objects and reports every shader as compiled so
+ * SpriteBatch, fonts and textures can be built, and ignores everything else.
+ */
+public final class HeadlessGL {
+
+	private HeadlessGL() {
+	}
+
+	/**
+	 * Makes {@link Gdx#gl} and {@link Gdx#gl20} a stub. Must be called before the
+	 * game is created.
+	 */
+	public static void install() {
+		Gdx.gl = Gdx.gl20 = create();
+	}
+
+	/**
+	 * @return a GL20 that does nothing
+	 */
+	public static GL20 create() {
+		return (GL20) Proxy.newProxyInstance(GL20.class.getClassLoader(), new Class<?>[] { GL20.class },
+				new InvocationHandler() {
+					private int nextId = 1;
+
+					@Override
+					public Object invoke(Object proxy, Method method, Object[] args) {
+						String name = method.getName();
+						Class<?> type = method.getReturnType();
+						if (name.equals("glGetShaderiv") || name.equals("glGetProgramiv")) {
+							int pname = (Integer) args[1];
+							boolean ok = pname == GL20.GL_COMPILE_STATUS || pname == GL20.GL_LINK_STATUS;
+							((IntBuffer) args[2]).put(0, ok ? 1 : 0);
+							return null;
+						}
+						if (name.startsWith("glGen") || name.startsWith("glCreate"))
+							return nextId++;
+						if (type == String.class)
+							return "";
+						if (type == boolean.class)
+							return false;
+						if (type == int.class)
+							return 0;
+						if (type == float.class)
+							return 0f;
+						return null;
+					}
+				});
+	}
+
+}
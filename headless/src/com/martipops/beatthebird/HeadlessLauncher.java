@@ -0,0 +1,23 @@
+package com.martipops.beatthebird;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+
+// Runs the game without a window or GL context, for build machines and servers.
+// The game's files go to the directory given as the first argument, or to a new
+// temporary directory, never to the desktop game's local storage.
+public class HeadlessLauncher {
+	public static void main(String[] arg) throws IOException {
+		File storage = arg.length > 0 ? new File(arg[0]) : Files.createTempDirectory("beatthebird").toFile();
+		storage.mkdirs();
+		System.out.println("Keeping the game's files in " + storage);
+		HeadlessGL.install();
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		config.updatesPerSecond = 60;
+		new HeadlessApplication(new GameMain(storage), config);
+	}
+}
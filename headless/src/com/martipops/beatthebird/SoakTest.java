@@ -0,0 +1,275 @@
+package com.martipops.beatthebird;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Random;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+
+/**
+ * Class SoakTest:
+ * Runs the full game headless and steps it as fast as the CPU allows with a
+ * fixed 60 FPS delta. Every time the wheel stops it places random bets and
+ * spins again, and it checks that no diamonds are created or lost outside of
+ * payouts. Exits with status 1 if a check fails, so it can run on build
+ * machines as a soak and performance regression test.
+ *
+ * Bets and balance resets go through {@link GameMain} like any input, so they
+ * are journaled, and the game keeps its files in a temporary directory. After
+ * the game closes, the round journal and the wallet are read back and must
+ * agree with the totals the game ended with.
+ *
+ * Before it closes, the game's files are also copied the way a crash would
+ * leave them: the wallet before the last bets reached it, the journal after
+ * them with half a record torn off its end. A fresh game started from the copy
+ * must get back the same totals, and its files must agree with them too.
+ */
+public class SoakTest {
+
+	/**
+	 * The number of frames to step
+	 */
+	private final long frames;
+	/**
+	 * Picks bets
+	 */
+	private final Random random;
+	/**
+	 * The directory the game keeps its files in
+	 */
+	private final File storage;
+	/**
+	 * The copy of the game's files left as a crash would leave them
+	 */
+	private final File crashStorage;
+	/**
+	 * The game being stepped
+	 */
+	private final GameMain game;
+	/**
+	 * The totals the game ended with, the player's at index 0 and each spot's at
+	 * its value
+	 */
+	private final int[] totals = new int[WheelLayout.MAX_SPOT + 1];
+
+	/**
+	 * Constructs a soak test.
+	 *
+	 * @param frames the number of frames to step
+	 * @param seed   the seed for picking bets
+	 * @throws IOException if the temporary directory can't be made
+	 */
+	public SoakTest(long frames, long seed) throws IOException {
+		this.frames = frames;
+		this.random = new Random(seed);
+		this.storage = Files.createTempDirectory("beatthebird-soak").toFile();
+		this.crashStorage = Files.createTempDirectory("beatthebird-crash").toFile();
+		this.game = new GameMain(storage);
+	}
+
+	/**
+	 * Steps the game. Must be called on the application thread after the game
+	 * was created.
+	 *
+	 * @return true if every check passed
+	 */
+	public boolean run() {
+		BetSpot[] spots = new BetSpot[GameMain.bets.size()];
+		int n = 0;
+		for (BetSpot spot : GameMain.bets)
+			spots[n++] = spot;
+		long rounds = 0;
+		long start = System.nanoTime();
+		for (long frame = 0; frame < frames; frame++) {
+			if (!GameMain.wheel.isSpinning()) {
+				if (GameMain.playerInventory.total < Inventory.COIN_VALUE)
+					GameMain.resetBalance(100);
+				int before = diamonds(spots);
+				for (int i = random.nextInt(3); i >= 0; i--)
+					GameMain.placeBet(spots[random.nextInt(spots.length)].spotValue,
+							(1 + random.nextInt(5)) * Inventory.COIN_VALUE);
+				if (diamonds(spots) != before) {
+					System.err.println("Placing bets changed the total diamonds in frame " + frame);
+					return false;
+				}
+				GameMain.wheel.spin();
+				rounds++;
+			}
+			game.update(WheelPhysics.DEFAULT_STEP);
+			if (GameMain.playerInventory.total < 0) {
+				System.err.println("Negative balance in frame " + frame);
+				return false;
+			}
+		}
+		double seconds = (System.nanoTime() - start) / 1e9;
+		System.out.printf("%d frames, %d rounds in %.2f s: %.0f frames/s%n", frames, rounds, seconds, frames / seconds);
+		return true;
+	}
+
+	/**
+	 * Lets the wheel stop, then copies the game's files as a crash right after a
+	 * few more bets would leave them. The wallet is copied before the bets and the
+	 * journal after them, as the wallet is written behind the journal, and the
+	 * journal's copy gets half of one more record. Records the totals the game
+	 * ends with. Must be called on the application thread before the game is
+	 * disposed.
+	 *
+	 * @throws IOException if the files can't be copied
+	 */
+	public void crash() throws IOException {
+		while (GameMain.wheel.isSpinning())
+			game.update(WheelPhysics.DEFAULT_STEP);
+		if (GameMain.playerInventory.total < 10 * Inventory.COIN_VALUE)
+			GameMain.resetBalance(100);
+		GameMain.wallet.flush();
+		copy(new File(storage, "wallet"), new File(crashStorage, "wallet"));
+		for (BetSpot spot : GameMain.bets)
+			GameMain.placeBet(spot.spotValue, Inventory.COIN_VALUE);
+		copy(new File(storage, "rounds.journal"), new File(crashStorage, "rounds.journal"));
+		// a bet whose check never made it to the disk
+		try (RandomAccessFile journal = new RandomAccessFile(new File(crashStorage, "rounds.journal"), "rw")) {
+			long records = GameMain.journal.getRecords();
+			journal.seek((records + 1) * RoundJournal.RECORD_SIZE);
+			journal.writeInt(RoundJournal.BET);
+			journal.writeInt(GameMain.bets.iterator().next().spotValue);
+			journal.writeInt(Inventory.COIN_VALUE);
+			journal.writeInt(RoundJournal.check(records, RoundJournal.BET, 0, 0));
+		}
+		totals[0] = GameMain.playerInventory.total;
+		for (BetSpot spot : GameMain.bets)
+			totals[spot.spotValue] = spot.total;
+	}
+
+	/**
+	 * Starts a new game from the files {@link #crash()} left, checks it got back
+	 * the totals the old game had, closes it and checks its files. Must be called
+	 * on the application thread after the old game is disposed.
+	 *
+	 * @return true if nothing was lost or duplicated
+	 * @throws IOException if the files can't be read
+	 */
+	public boolean restart() throws IOException {
+		GameMain restarted = new GameMain(crashStorage);
+		restarted.create();
+		restarted.finishLoading();
+		boolean passed = true;
+		if (GameMain.playerInventory.total != totals[0]) {
+			System.err.println("The restarted game has a balance of " + GameMain.playerInventory.total + ", not "
+					+ totals[0]);
+			passed = false;
+		}
+		for (BetSpot spot : GameMain.bets) {
+			if (spot.total != totals[spot.spotValue]) {
+				System.err.println("The restarted game has a bet of " + spot.total + " on " + spot.spotValue
+						+ ", not " + totals[spot.spotValue]);
+				passed = false;
+			}
+		}
+		restarted.dispose();
+		return checkStorage(crashStorage) && passed;
+	}
+
+	/**
+	 * Reads back the round journal and the wallet in a directory a game closed,
+	 * checks them against the totals the game ended with, then deletes them.
+	 *
+	 * @param directory the game's storage directory
+	 * @return true if both agree with the game
+	 * @throws IOException if they can't be read
+	 */
+	public boolean checkStorage(File directory) throws IOException {
+		boolean passed = true;
+		try (RoundJournal journal = new RoundJournal(new File(directory, "rounds.journal"))) {
+			RoundJournal.State state = journal.getRecovered();
+			if (state.getPlayer() != totals[0]) {
+				System.err.println("The journal recovered a balance of " + state.getPlayer() + ", not " + totals[0]);
+				passed = false;
+			}
+			for (int value = 1; value < totals.length; value++) {
+				if (state.getBet(value) != totals[value]) {
+					System.err.println("The journal recovered a bet of " + state.getBet(value) + " on " + value
+							+ ", not " + totals[value]);
+					passed = false;
+				}
+			}
+		}
+		try (WalletStore wallet = new WalletStore(new File(directory, "wallet"))) {
+			int saved = wallet.get(GameMain.PLAYER_ID, -1);
+			if (saved != totals[0]) {
+				System.err.println("The wallet saved a balance of " + saved + ", not " + totals[0]);
+				passed = false;
+			}
+		}
+		delete(directory);
+		return passed;
+	}
+
+	/**
+	 * Copies a file, or a directory and the files in it.
+	 */
+	private static void copy(File from, File to) throws IOException {
+		File[] children = from.listFiles();
+		if (children == null) {
+			Files.copy(from.toPath(), to.toPath(), StandardCopyOption.REPLACE_EXISTING);
+			return;
+		}
+		to.mkdirs();
+		for (File child : children)
+			copy(child, new File(to, child.getName()));
+	}
+
+	private static void delete(File file) {
+		File[] children = file.listFiles();
+		if (children != null)
+			for (File child : children)
+				delete(child);
+		file.delete();
+	}
+
+	/**
+	 * @param spots the bet spots
+	 * @return the diamonds held by the player and all bet spots
+	 */
+	private static int diamonds(BetSpot[] spots) {
+		int total = GameMain.playerInventory.total;
+		for (BetSpot spot : spots)
+			total += spot.total;
+		return total;
+	}
+
+	public static void main(String[] arg) throws IOException {
+		long frames = arg.length > 0 ? Long.parseLong(arg[0]) : 100000;
+		long seed = arg.length > 1 ? Long.parseLong(arg[1]) : System.nanoTime();
+		final SoakTest test = new SoakTest(frames, seed);
+		HeadlessGL.install();
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		// only call create, the test steps the game itself
+		config.updatesPerSecond = -1;
+		new HeadlessApplication(new ApplicationAdapter() {
+			@Override
+			public void create() {
+				boolean passed;
+				try {
+					test.game.create();
+					test.game.finishLoading();
+					passed = test.run();
+					test.crash();
+					test.game.dispose();
+					passed &= test.checkStorage(test.storage);
+					passed &= test.restart();
+				} catch (RuntimeException | IOException e) {
+					e.printStackTrace();
+					passed = false;
+				}
+				if (!passed)
+					System.exit(1);
+			}
+		}, config);
+	}
+
+}